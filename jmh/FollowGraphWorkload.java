@@ -0,0 +1,276 @@
+import benchmarks.GraphWorkload;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * The benchmarked operations on a FollowGraph built from a synthetic graph of a given shape and size.
+ * The connections and query pairs are generated once; prepare builds the graph a benchmark starts from.
+ */
+public class FollowGraphWorkload implements GraphWorkload {
+    private final String shape;
+    private final int size;
+    private final String[] names;
+    private final int[][] edges;
+    private final String[] smallNames;
+    private final int[][] smallEdges;
+    private final int[] queryFrom = new int[QUERIES];
+    private final int[] queryTo = new int[QUERIES];
+    private File connectionsFile;
+    private FollowGraph graph;
+
+    /**
+     * Generates the connections of the graph and the pairs of users queried.
+     *
+     * @param shape the graph shape, one of GraphGenerator.SHAPES
+     * @param size  the number of users
+     */
+    public FollowGraphWorkload(String shape, int size) {
+        this.shape = shape;
+        this.size = size;
+        names = new String[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = GraphGenerator.name(i);
+        }
+        edges = GraphGenerator.generate(shape, size, 42);
+        smallNames = new String[SMALL_SIZE];
+        for (int i = 0; i < SMALL_SIZE; i++) {
+            smallNames[i] = GraphGenerator.name(i);
+        }
+        smallEdges = GraphGenerator.generate(shape, SMALL_SIZE, 7);
+        Random random = new Random(1);
+        for (int i = 0; i < QUERIES; i++) {
+            queryFrom[i] = random.nextInt(size);
+            queryTo[i] = random.nextInt(size);
+        }
+    }
+
+    /**
+     * Builds a new graph for the given stage, replacing the current one.
+     *
+     * @param stage the graph to start from
+     */
+    public void prepare(Stage stage) {
+        switch (stage) {
+            case EMPTY -> graph = new FollowGraph();
+            case USERS -> {
+                // Written here so that loadAllConnections never times the writing of its input.
+                connectionsFile();
+                graph = build(names, new int[2][0]);
+            }
+            case CONNECTED -> {
+                graph = build(names, edges);
+                graph.disableDenseMode();
+            }
+            case DENSE -> {
+                graph = build(names, edges);
+                if (!graph.enableDenseMode()) {
+                    throw new IllegalArgumentException("Dense mode needs at most " + FollowGraph.DENSE_MODE_LIMIT
+                            + " users, not " + size);
+                }
+            }
+            case SMALL -> graph = build(smallNames, smallEdges);
+            case SMALL_CACHED -> {
+                graph = build(smallNames, smallEdges);
+                graph.setPathCacheCapacity(FollowGraph.DEFAULT_PATH_CACHE_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Adds every user one at a time.
+     *
+     * @return the graph
+     */
+    public Object addUsers() {
+        for (String name : names) {
+            graph.addUser(name);
+        }
+        return graph;
+    }
+
+    /**
+     * Follows every connection one at a time.
+     *
+     * @return the number of connections added
+     */
+    public long addConnections() {
+        long added = 0;
+        for (int i = 0; i < edges[0].length; i++) {
+            added += graph.addConnections(names[edges[0][i]], names[edges[1][i]]) ? 1 : 0;
+        }
+        return added;
+    }
+
+    /**
+     * Loads every connection from the connections file written when the USERS stage was prepared.
+     *
+     * @return the graph
+     */
+    public Object loadAllConnections() {
+        graph.loadAllConnections(connectionsFile().getPath());
+        return graph;
+    }
+
+    /**
+     * Removes a tenth of the users, spread over the graph.
+     *
+     * @return the graph
+     */
+    public Object removeUsers() {
+        for (int i = 0; i < size / 10; i++) {
+            graph.removeUser(names[(int) ((i * 7919L) % size)]);
+        }
+        return graph;
+    }
+
+    /**
+     * Builds the reachability index of the graph.
+     *
+     * @return the index
+     */
+    public Object reachabilityIndex() {
+        return graph.reachabilityIndex();
+    }
+
+    /**
+     * Looks up one user by name.
+     *
+     * @param query the query number, any int
+     * @return the user
+     */
+    public Object getUserByName(int query) {
+        return graph.getUserByName(names[queryFrom[query & (QUERIES - 1)]]);
+    }
+
+    /**
+     * Finds the shortest path between a pair of users.
+     *
+     * @param query the query number, any int
+     * @return the path
+     */
+    public String shortestPath(int query) {
+        int q = query & (QUERIES - 1);
+        return graph.shortestPath(names[queryFrom[q]], names[queryTo[q]]);
+    }
+
+    /**
+     * Tells whether one user can reach another.
+     *
+     * @param query the query number, any int
+     * @return true if there is a path
+     */
+    public boolean canReach(int query) {
+        int q = query & (QUERIES - 1);
+        return graph.canReach(names[queryFrom[q]], names[queryTo[q]]);
+    }
+
+    /**
+     * Lists the followers a user shares with the next user.
+     *
+     * @param query the query number, any int
+     * @return the common followers
+     */
+    public Object commonFollowers(int query) {
+        int a = queryFrom[query & (QUERIES - 1)];
+        return graph.commonFollowers(names[a], names[(a + 1) % size]);
+    }
+
+    /**
+     * Prints every user sorted by number of followers.
+     */
+    public void printAllUsers() {
+        graph.printAllUsers(new FollowGraph.FollowersComparator(graph));
+    }
+
+    /**
+     * Finds all paths from every user of the small graph to the user halfway around.
+     *
+     * @return the number of paths found
+     */
+    public long allPaths() {
+        long paths = 0;
+        for (int i = 0; i < SMALL_SIZE; i++) {
+            paths += graph.allPaths(smallNames[i], smallNames[(i + SMALL_SIZE / 2) % SMALL_SIZE]).size();
+        }
+        return paths;
+    }
+
+    /**
+     * Finds all loops in the small graph.
+     *
+     * @return the loops
+     */
+    public Object findAllLoops() {
+        return graph.findAllLoops();
+    }
+
+    /**
+     * Describes the memory of the connection stores and the reachability index of the full graph.
+     *
+     * @return the figures
+     */
+    public String figures() {
+        SparseAdjacency lists = new SparseAdjacency(size);
+        lists.addEdges(edges[0], edges[1], edges[0].length);
+        String stores = String.format(Locale.ROOT, "sparse lists %d KB, boolean matrix %d KB",
+                lists.memoryBytes() / 1024, size * (16L + size) / 1024);
+        if (size <= FollowGraph.DENSE_MODE_LIMIT) {
+            stores += String.format(Locale.ROOT, ", bitsets %d KB", new BitsetAdjacency(size).memoryBytes() / 1024);
+        }
+        ReachabilityIndex index = build(names, edges).reachabilityIndex();
+        return String.format(Locale.ROOT, "%s %d users: %s; %s reachability index %d KB, built in %.2f ms",
+                shape, size, stores, index.isClosure() ? "closure" : "interval",
+                (index.memoryBytes() + 1023) / 1024, index.buildMillis());
+    }
+
+    /**
+     * Gets the connections file read by loadAllConnections, writing it on first use.
+     *
+     * @return the file
+     */
+    private File connectionsFile() {
+        if (connectionsFile == null) {
+            try {
+                File file = File.createTempFile("benchmark-connections-" + shape, ".txt");
+                file.deleteOnExit();
+                try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8)) {
+                    for (int i = 0; i < edges[0].length; i++) {
+                        out.println(names[edges[0][i]] + ", " + names[edges[1][i]]);
+                    }
+                }
+                connectionsFile = file;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return connectionsFile;
+    }
+
+    /**
+     * Builds a graph with the given users and connections through the bulk APIs.
+     * Path caching is turned off so that repeated queries measure the searches themselves.
+     *
+     * @param names the usernames
+     * @param edges the connections as parallel arrays of source and target positions
+     * @return the graph
+     */
+    private static FollowGraph build(String[] names, int[][] edges) {
+        FollowGraph graph = new FollowGraph();
+        graph.setPathCacheCapacity(0);
+        graph.addUsers(List.of(names));
+        graph.addConnections(edges[0], edges[1], edges[0].length);
+        return graph;
+    }
+}
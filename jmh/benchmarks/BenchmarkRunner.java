@@ -0,0 +1,198 @@
+package benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Runs the FollowGraph JMH benchmarks and checks them for regressions.
+ * The results are written in JMH's JSON format. Given the JSON file of an earlier run as a baseline, the run
+ * fails if any benchmark got slower by more than the threshold and the two runs' confidence intervals do not
+ * overlap, so noise within JMH's error bounds is not reported. --compare checks an existing JSON file, for
+ * example one written by running org.openjdk.jmh.Main directly, without running the benchmarks.
+ * After a run, the memory figures JMH does not measure are printed for each graph.
+ * <p>
+ * Usage: gradle jmh --args="[--size N] [--shape random|powerlaw|cliques|all] [--only regex] [--forks N]
+ * [--json results.json] [--compare results.json] [--baseline old.json] [--threshold 0.20]"
+ */
+public class BenchmarkRunner {
+    /**
+     * File the results are written to unless --json names another
+     */
+    private static final String DEFAULT_RESULTS = "build/reports/jmh/results.json";
+
+    /**
+     * One benchmark result read from a JMH JSON file.
+     */
+    private static final class Score {
+        private final String mode;
+        private final double score;
+        private final double error;
+        private final String unit;
+
+        /**
+         * Constructs a result.
+         *
+         * @param mode  the JMH mode, such as avgt or thrpt
+         * @param score the primary score
+         * @param error the half-width of the confidence interval, 0 if JMH could not compute one
+         * @param unit  the unit of the score
+         */
+        private Score(String mode, double score, double error, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+    }
+
+    /**
+     * Runs the benchmarks, or reads earlier results, and compares them with the baseline if one is given.
+     *
+     * @param args the command-line options described in the class comment
+     * @throws IOException     if a results or baseline file cannot be used
+     * @throws RunnerException if JMH fails
+     */
+    public static void main(String[] args) throws IOException, RunnerException {
+        String size = "20000";
+        String shape = "all";
+        String only = null;
+        int forks = -1;
+        String json = DEFAULT_RESULTS;
+        String compare = null;
+        String baseline = null;
+        double threshold = 0.20;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--size" -> size = args[i + 1];
+                case "--shape" -> shape = args[i + 1];
+                case "--only" -> only = args[i + 1];
+                case "--forks" -> forks = Integer.parseInt(args[i + 1]);
+                case "--json" -> json = args[i + 1];
+                case "--compare" -> compare = args[i + 1];
+                case "--baseline" -> baseline = args[i + 1];
+                case "--threshold" -> threshold = Double.parseDouble(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        String results = compare;
+        if (results == null) {
+            String[] shapes = shape.equals("all") ? new String[]{"random", "powerlaw", "cliques"} : new String[]{shape};
+            Path output = Path.of(json).toAbsolutePath();
+            Files.createDirectories(output.getParent());
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(Pattern.quote(FollowGraphBenchmarks.class.getName()) + "\\.(" + (only == null ? ".*" : only) + ")$")
+                    .param("shape", shapes)
+                    .param("size", size)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(output.toString());
+            if (forks >= 0) {
+                options.forks(forks);
+            }
+            new Runner(options.build()).run();
+            System.out.println("Results written to " + output + ".");
+            for (String s : shapes) {
+                System.out.println(GraphWorkload.create(s, Integer.parseInt(size)).figures());
+            }
+            results = output.toString();
+        }
+        if (baseline != null && !compare(read(results), read(baseline), baseline, threshold)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the results in a JMH JSON file.
+     *
+     * @param file the file
+     * @return the results, keyed by benchmark name and parameters
+     * @throws IOException if the file cannot be read or is not a JMH JSON file
+     */
+    private static Map<String, Score> read(String file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        try (Reader in = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+            JsonArray runs = JsonParser.parseReader(in).getAsJsonArray();
+            for (JsonElement element : runs) {
+                JsonObject run = element.getAsJsonObject();
+                Map<String, String> params = new TreeMap<>();
+                if (run.has("params")) {
+                    for (Map.Entry<String, JsonElement> p : run.getAsJsonObject("params").entrySet()) {
+                        params.put(p.getKey(), p.getValue().getAsString());
+                    }
+                }
+                JsonObject metric = run.getAsJsonObject("primaryMetric");
+                // JMH writes the error as "NaN" when there were too few iterations to compute it.
+                double error = metric.get("scoreError").getAsDouble();
+                scores.put(run.get("benchmark").getAsString() + " " + params, new Score(run.get("mode").getAsString(),
+                        metric.get("score").getAsDouble(), Double.isNaN(error) ? 0 : error,
+                        metric.get("scoreUnit").getAsString()));
+            }
+        } catch (RuntimeException e) {
+            throw new IOException(file + " is not a JMH JSON result file: " + e.getMessage(), e);
+        }
+        return scores;
+    }
+
+    /**
+     * Compares results with those of an earlier run. A benchmark regressed if it got slower by more than
+     * the threshold and the confidence intervals of the two runs are apart.
+     *
+     * @param results   the results to check
+     * @param old       the results of the earlier run
+     * @param baseline  the name of the earlier run's file
+     * @param threshold the largest allowed slowdown, as a fraction
+     * @return true if no benchmark regressed
+     */
+    private static boolean compare(Map<String, Score> results, Map<String, Score> old, String baseline,
+                                   double threshold) {
+        boolean ok = true;
+        for (Map.Entry<String, Score> e : results.entrySet()) {
+            Score now = e.getValue();
+            Score before = old.get(e.getKey());
+            if (before == null || before.score == 0 || now.score == 0) {
+                continue;
+            }
+            if (!before.mode.equals(now.mode) || !before.unit.equals(now.unit)) {
+                System.out.println("SKIPPED " + e.getKey() + ": measured in " + before.mode + " " + before.unit
+                        + " before and " + now.mode + " " + now.unit + " now");
+                continue;
+            }
+            // Throughput is better when higher; every other mode measures time, which is better when lower.
+            boolean higherIsBetter = now.mode.equals("thrpt");
+            double change = higherIsBetter ? before.score / now.score - 1 : now.score / before.score - 1;
+            boolean apart = higherIsBetter ? now.score + now.error < before.score - before.error
+                    : now.score - now.error > before.score + before.error;
+            if (change > threshold && apart) {
+                System.out.printf(Locale.ROOT, "REGRESSION %s: %.3f +/- %.3f -> %.3f +/- %.3f %s (%+.0f%%)%n",
+                        e.getKey(), before.score, before.error, now.score, now.error, now.unit, 100 * change);
+                ok = false;
+            }
+        }
+        System.out.println(ok ? "No regressions against " + baseline + "." : "Regressions found against " + baseline + ".");
+        return ok;
+    }
+}
@@ -0,0 +1,346 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * JMH benchmarks for the FollowGraph hot paths, on synthetic graphs whose shape and size are JMH parameters.
+ * Queries are measured one call at a time on a graph built once per trial. Operations that change the
+ * graph get a freshly built graph before every call and process the whole graph in that call, which
+ * takes milliseconds at the default size, long enough that JMH's per-call setup does not distort it.
+ * allPaths and findAllLoops run on small graphs of the same shape, since their cost is exponential.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FollowGraphBenchmarks {
+    /**
+     * A graph of each shape and size, rebuilt at the stage set by the subclass.
+     */
+    @State(Scope.Benchmark)
+    public abstract static class GraphState {
+        @Param({"random", "powerlaw", "cliques"})
+        public String shape;
+
+        @Param({"20000"})
+        public int size;
+
+        GraphWorkload workload;
+        int query;
+
+        /**
+         * Generates the graph's connections and, for queries, builds the graph.
+         */
+        @Setup(Level.Trial)
+        public void generate() {
+            workload = GraphWorkload.create(shape, size);
+            if (stage() != null) {
+                workload.prepare(stage());
+            }
+        }
+
+        /**
+         * Gets the graph built once for the trial.
+         *
+         * @return the stage, or null if the benchmark rebuilds the graph before every call
+         */
+        abstract GraphWorkload.Stage stage();
+    }
+
+    /**
+     * Every user and connection, with dense mode off, for queries that leave the graph unchanged.
+     */
+    public static class Connected extends GraphState {
+        GraphWorkload.Stage stage() {
+            return GraphWorkload.Stage.CONNECTED;
+        }
+    }
+
+    /**
+     * Every user and connection with dense mode on. The size must be at most FollowGraph.DENSE_MODE_LIMIT.
+     */
+    public static class Dense extends GraphState {
+        GraphWorkload.Stage stage() {
+            return GraphWorkload.Stage.DENSE;
+        }
+    }
+
+    /**
+     * A small graph of the same shape with path caching off.
+     */
+    public static class Small extends GraphState {
+        GraphWorkload.Stage stage() {
+            return GraphWorkload.Stage.SMALL;
+        }
+    }
+
+    /**
+     * A small graph of the same shape with path caching on.
+     */
+    public static class SmallCached extends GraphState {
+        GraphWorkload.Stage stage() {
+            return GraphWorkload.Stage.SMALL_CACHED;
+        }
+    }
+
+    /**
+     * A new graph with no users before every call.
+     */
+    public static class Empty extends GraphState {
+        GraphWorkload.Stage stage() {
+            return null;
+        }
+
+        /**
+         * Replaces the graph before the call.
+         */
+        @Setup(Level.Invocation)
+        public void reset() {
+            workload.prepare(GraphWorkload.Stage.EMPTY);
+        }
+    }
+
+    /**
+     * A new graph with every user and no connections before every call.
+     */
+    public static class Users extends GraphState {
+        GraphWorkload.Stage stage() {
+            return null;
+        }
+
+        /**
+         * Replaces the graph before the call.
+         */
+        @Setup(Level.Invocation)
+        public void reset() {
+            workload.prepare(GraphWorkload.Stage.USERS);
+        }
+    }
+
+    /**
+     * A new graph with every user and connection before every call.
+     */
+    public static class Fresh extends GraphState {
+        GraphWorkload.Stage stage() {
+            return null;
+        }
+
+        /**
+         * Replaces the graph before the call.
+         */
+        @Setup(Level.Invocation)
+        public void reset() {
+            workload.prepare(GraphWorkload.Stage.CONNECTED);
+        }
+    }
+
+    /**
+     * Discards what the graph prints, so the benchmarks that print measure the graph and not the console.
+     */
+    @State(Scope.Benchmark)
+    public static class Quiet {
+        private PrintStream console;
+
+        /**
+         * Sends standard output nowhere.
+         */
+        @Setup(Level.Trial)
+        public void silence() {
+            console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        /**
+         * Restores standard output.
+         */
+        @TearDown(Level.Trial)
+        public void restore() {
+            System.setOut(console);
+        }
+    }
+
+    /**
+     * Adds every user to an empty graph, one at a time.
+     *
+     * @param state the graph to work on
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object addUser(Empty state) {
+        return state.workload.addUsers();
+    }
+
+    /**
+     * Follows every connection in a graph of users with no connections, one at a time.
+     *
+     * @param state the graph to work on
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long addConnections(Users state) {
+        return state.workload.addConnections();
+    }
+
+    /**
+     * Loads every connection from a connections file into a graph of users with no connections.
+     *
+     * @param state the graph to work on
+     * @param quiet discards what the graph prints
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object loadAllConnections(Users state, Quiet quiet) {
+        return state.workload.loadAllConnections();
+    }
+
+    /**
+     * Removes a tenth of the users from a connected graph.
+     *
+     * @param state the graph to work on
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object removeUser(Fresh state) {
+        return state.workload.removeUsers();
+    }
+
+    /**
+     * Builds the reachability index of a connected graph.
+     *
+     * @param state the graph to work on
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object reachabilityIndexBuild(Fresh state) {
+        return state.workload.reachabilityIndex();
+    }
+
+    /**
+     * Looks up one user by name.
+     *
+     * @param state the graph to work on
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object getUserByName(Connected state) {
+        return state.workload.getUserByName(state.query++);
+    }
+
+    /**
+     * Finds the shortest path between a pair of users.
+     *
+     * @param state the graph to work on
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    public String shortestPath(Connected state) {
+        return state.workload.shortestPath(state.query++);
+    }
+
+    /**
+     * Answers one reachability query through the reachability index.
+     *
+     * @param state the graph to work on
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean canReach(Connected state) {
+        return state.workload.canReach(state.query++);
+    }
+
+    /**
+     * Lists the followers shared by two users, merging sorted lists.
+     *
+     * @param state the graph to work on
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    public Object commonFollowers(Connected state) {
+        return state.workload.commonFollowers(state.query++);
+    }
+
+    /**
+     * Lists the followers shared by two users, intersecting bitsets.
+     *
+     * @param state the graph to work on
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    public Object commonFollowersDense(Dense state) {
+        return state.workload.commonFollowers(state.query++);
+    }
+
+    /**
+     * Prints every user sorted by number of followers.
+     *
+     * @param state the graph to work on
+     * @param quiet discards what the graph prints
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void printAllUsers(Connected state, Quiet quiet) {
+        state.workload.printAllUsers();
+    }
+
+    /**
+     * Finds all paths between pairs of users in a small graph, without the path cache.
+     *
+     * @param state the graph to work on
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    public long allPaths(Small state) {
+        return state.workload.allPaths();
+    }
+
+    /**
+     * Finds all paths between pairs of users in a small graph, answered from the path cache after the first call.
+     *
+     * @param state the graph to work on
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    public long allPathsCached(SmallCached state) {
+        return state.workload.allPaths();
+    }
+
+    /**
+     * Finds all loops in a small graph.
+     *
+     * @param state the graph to work on
+     * @return the result, consumed by JMH
+     */
+    @Benchmark
+    public Object findAllLoops(Small state) {
+        return state.workload.findAllLoops();
+    }
+}
@@ -0,0 +1,158 @@
+package benchmarks;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * The graph operations the benchmarks measure, on one synthetic graph of a given shape and size.
+ * JMH only accepts benchmarks in a named package, and a named package cannot refer to the classes in the
+ * default package, so the benchmarks reach FollowGraph through this interface. FollowGraphWorkload, in the
+ * default package, implements it and is looked up by name.
+ */
+public interface GraphWorkload {
+    /**
+     * Number of users in the graphs that allPaths and findAllLoops run on, whose cost is exponential
+     */
+    int SMALL_SIZE = 14;
+
+    /**
+     * Number of precomputed query pairs; queries cycle through them
+     */
+    int QUERIES = 1024;
+
+    /**
+     * The graph a benchmark starts from.
+     */
+    enum Stage {
+        /** No users. */
+        EMPTY,
+        /** Every user and no connections. */
+        USERS,
+        /** Every user and connection, with dense mode off. */
+        CONNECTED,
+        /** Every user and connection, with dense mode on. */
+        DENSE,
+        /** A SMALL_SIZE user graph of the same shape, with path caching off. */
+        SMALL,
+        /** A SMALL_SIZE user graph of the same shape, with path caching on. */
+        SMALL_CACHED
+    }
+
+    /**
+     * Creates the workload for a graph shape and size.
+     *
+     * @param shape the graph shape, one of GraphGenerator.SHAPES
+     * @param size  the number of users
+     * @return the workload, with no graph built yet
+     */
+    static GraphWorkload create(String shape, int size) {
+        try {
+            return (GraphWorkload) Class.forName("FollowGraphWorkload")
+                    .getConstructor(String.class, int.class).newInstance(shape, size);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create the workload: " + e, e);
+        }
+    }
+
+    /**
+     * Builds a new graph for the given stage, replacing the current one.
+     *
+     * @param stage the graph to start from
+     */
+    void prepare(Stage stage);
+
+    /**
+     * Adds every user one at a time.
+     *
+     * @return the graph
+     */
+    Object addUsers();
+
+    /**
+     * Follows every connection one at a time.
+     *
+     * @return the number of connections added
+     */
+    long addConnections();
+
+    /**
+     * Loads every connection from a connections file.
+     *
+     * @return the graph
+     */
+    Object loadAllConnections();
+
+    /**
+     * Removes a tenth of the users, spread over the graph.
+     *
+     * @return the graph
+     */
+    Object removeUsers();
+
+    /**
+     * Builds the reachability index of the graph.
+     *
+     * @return the index
+     */
+    Object reachabilityIndex();
+
+    /**
+     * Looks up one user by name.
+     *
+     * @param query the query number, any int
+     * @return the user
+     */
+    Object getUserByName(int query);
+
+    /**
+     * Finds the shortest path between a pair of users.
+     *
+     * @param query the query number, any int
+     * @return the path
+     */
+    String shortestPath(int query);
+
+    /**
+     * Tells whether one user can reach another.
+     *
+     * @param query the query number, any int
+     * @return true if there is a path
+     */
+    boolean canReach(int query);
+
+    /**
+     * Lists the followers a user shares with the next user.
+     *
+     * @param query the query number, any int
+     * @return the common followers
+     */
+    Object commonFollowers(int query);
+
+    /**
+     * Prints every user sorted by number of followers.
+     */
+    void printAllUsers();
+
+    /**
+     * Finds all paths from every user of the small graph to the user halfway around.
+     *
+     * @return the number of paths found
+     */
+    long allPaths();
+
+    /**
+     * Finds all loops in the small graph.
+     *
+     * @return the loops
+     */
+    Object findAllLoops();
+
+    /**
+     * Describes the memory used by the graph's structures, for figures JMH does not measure.
+     *
+     * @return the figures
+     */
+    String figures();
+}
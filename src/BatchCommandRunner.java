@@ -0,0 +1,380 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Runs FollowGraphDriver commands read from a file or a pipe instead of the interactive menu.
+ * Each line holds one command code from the menu followed by its arguments separated by commas, the
+ * same way connections files are written, for example "C Paul Smith, Tom Doe". Blank lines and lines
+ * starting with # are skipped. No menus or prompts are printed; queries print only their results.
+ * When grouping is on, runs of consecutive U commands are added with one addUsers call and long runs
+ * of consecutive C commands are added with one bulk addConnections call. Grouped runs skip the
+ * per-command lookups and cache upkeep, and end with the same users and connections. When a log is
+ * attached, though, a bulk batch is made durable with a checkpoint, which compacts the graph and so
+ * may change users' index positions.
+ */
+public class BatchCommandRunner {
+    /**
+     * Shortest run of C commands applied as one bulk batch. The bulk path checkpoints the graph when a
+     * log is attached, so shorter runs are applied one command at a time.
+     */
+    public static final int BULK_MIN = 4096;
+
+    /**
+     * Largest run of C commands held before it is applied
+     */
+    public static final int BULK_MAX = 1 << 20;
+
+    private final FollowGraph graph;
+    private final PrintStream out;
+    private final boolean group;
+
+    private final List<String> pendingUsers = new ArrayList<>();
+    private String[] pendingFromNames = new String[16];
+    private String[] pendingToNames = new String[16];
+    private int[] pendingFrom = new int[0];
+    private int[] pendingTo = new int[0];
+    private int pendingCount;      // Number of C commands waiting to be applied.
+    private boolean pendingByIndex; // Whether the waiting C commands have moved to the index arrays.
+
+    private long lineNumber;
+    private long commands;
+    private long errors;
+
+    /**
+     * Constructs a runner that applies commands to a graph.
+     *
+     * @param graph the graph to run the commands against
+     * @param out   where results are written
+     * @param group whether to apply runs of consecutive additions in batches
+     */
+    public BatchCommandRunner(FollowGraph graph, PrintStream out, boolean group) {
+        this.graph = graph;
+        this.out = out;
+        this.group = group;
+    }
+
+    /**
+     * Runs every command from a reader until it ends or a Q command is read.
+     *
+     * @param reader the source of the commands
+     * @return the number of commands run
+     * @throws IOException if the commands cannot be read
+     */
+    public long run(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            String code = (space < 0 ? line : line.substring(0, space)).toUpperCase();
+            String[] args = space < 0 ? new String[0] : line.substring(space + 1).split(",");
+            for (int i = 0; i < args.length; i++) {
+                args[i] = args[i].trim();
+            }
+            if (code.equals("Q")) {
+                break;
+            }
+            commands++;
+            execute(code, args);
+        }
+        flush();
+        return commands;
+    }
+
+    /**
+     * Gets the number of commands that could not be run.
+     *
+     * @return the number of errors reported
+     */
+    public long errors() {
+        return errors;
+    }
+
+    /**
+     * Runs one command, holding additions back when they can be grouped.
+     *
+     * @param code the menu code of the command
+     * @param args the arguments of the command
+     */
+    private void execute(String code, String[] args) {
+        if (code.equals("U") && arguments(code, args, 1)) {
+            flushConnections();
+            if (group) {
+                pendingUsers.add(args[0]);
+            } else {
+                graph.addUser(args[0]);
+            }
+            return;
+        }
+        if (code.equals("C") && arguments(code, args, 2)) {
+            flushUsers();
+            if (group) {
+                queueConnection(args[0], args[1]);
+            } else {
+                graph.addConnections(args[0], args[1]);
+            }
+            return;
+        }
+        if (code.equals("U") || code.equals("C")) {
+            return;
+        }
+        flush();
+        switch (code) {
+            case "RU":
+                if (arguments(code, args, 1)) {
+                    graph.removeUser(args[0]);
+                }
+                break;
+            case "RC":
+                if (arguments(code, args, 2)) {
+                    graph.removeConnection(args[0], args[1]);
+                }
+                break;
+            case "AU":
+                if (arguments(code, args, 1)) {
+                    graph.loadAllUsers(args[0]);
+                }
+                break;
+            case "AC":
+                if (arguments(code, args, 1)) {
+                    graph.loadAllConnections(args[0]);
+                }
+                break;
+            case "IU":
+                if (arguments(code, args, 1)) {
+                    GraphImporter.importUsers(graph, args[0]);
+                }
+                break;
+            case "IC":
+                if (arguments(code, args, 1)) {
+                    GraphImporter.importConnections(graph, args[0]);
+                }
+                break;
+            case "P":
+                printUsers(args.length == 0 ? "SA" : args[0].toUpperCase());
+                break;
+            case "L":
+                List<String> loops = graph.findAllLoops();
+                Collections.sort(loops);
+                for (String l : loops) {
+                    out.println(l);
+                }
+                break;
+            case "SP":
+                if (arguments(code, args, 2)) {
+                    out.println(graph.shortestPath(args[0], args[1]));
+                }
+                break;
+            case "AP":
+                if (arguments(code, args, 2)) {
+                    for (String p : graph.allPaths(args[0], args[1])) {
+                        out.println(p);
+                    }
+                }
+                break;
+            case "DS":
+                printDistances(args.length == 0 || args[0].isEmpty() ? "0" : args[0]);
+                break;
+            case "CR":
+                if (arguments(code, args, 2)) {
+                    out.println(graph.canReach(args[0], args[1]));
+                }
+                break;
+            case "R":
+                if (args.length >= 1) {
+                    recommend(args[0], args.length > 1 ? args[1].toUpperCase() : "AA");
+                } else {
+                    arguments(code, args, 1);
+                }
+                break;
+            case "M":
+                out.print(GraphMetrics.view().dump());
+                break;
+            default:
+                error("unknown command " + code);
+        }
+    }
+
+    /**
+     * Checks that a command has the expected number of arguments, reporting an error if not.
+     *
+     * @return true if the argument count is right
+     */
+    private boolean arguments(String code, String[] args, int expected) {
+        if (args.length == expected && !args[expected - 1].isEmpty()) {
+            return true;
+        }
+        error(code + " expects " + expected + (expected == 1 ? " argument" : " comma-separated arguments"));
+        return false;
+    }
+
+    /**
+     * Reports a command that could not be run, with its line number.
+     */
+    private void error(String message) {
+        errors++;
+        out.println("Error on line " + lineNumber + ": " + message);
+    }
+
+    /**
+     * Holds a connection until the run of C commands ends. Connections are kept by name while the run
+     * is short and by index position once it is long enough for the bulk path, which is safe because
+     * no user can be added or removed in the middle of a run.
+     */
+    private void queueConnection(String from, String to) {
+        if (!pendingByIndex && pendingCount == BULK_MIN) {
+            pendingFrom = new int[BULK_MIN * 2];
+            pendingTo = new int[BULK_MIN * 2];
+            for (int i = 0; i < pendingCount; i++) {
+                pendingFrom[i] = graph.indexOf(pendingFromNames[i]);
+                pendingTo[i] = graph.indexOf(pendingToNames[i]);
+            }
+            pendingFromNames = new String[16];
+            pendingToNames = new String[16];
+            pendingByIndex = true;
+        }
+        if (pendingByIndex) {
+            if (pendingCount == pendingFrom.length) {
+                pendingFrom = Arrays.copyOf(pendingFrom, pendingCount * 2);
+                pendingTo = Arrays.copyOf(pendingTo, pendingCount * 2);
+            }
+            pendingFrom[pendingCount] = graph.indexOf(from);
+            pendingTo[pendingCount] = graph.indexOf(to);
+        } else {
+            if (pendingCount == pendingFromNames.length) {
+                pendingFromNames = Arrays.copyOf(pendingFromNames, pendingCount * 2);
+                pendingToNames = Arrays.copyOf(pendingToNames, pendingCount * 2);
+            }
+            pendingFromNames[pendingCount] = from;
+            pendingToNames[pendingCount] = to;
+        }
+        pendingCount++;
+        if (pendingCount >= BULK_MAX) {
+            flushConnections();
+        }
+    }
+
+    /**
+     * Applies every held addition.
+     */
+    private void flush() {
+        flushUsers();
+        flushConnections();
+    }
+
+    /**
+     * Adds the held users in one batch.
+     */
+    private void flushUsers() {
+        if (!pendingUsers.isEmpty()) {
+            graph.addUsers(pendingUsers);
+            pendingUsers.clear();
+        }
+    }
+
+    /**
+     * Adds the held connections, in one bulk batch if the run was long enough. Connections naming a
+     * user that does not exist are held as index -1 and skipped by the bulk addConnections, which still
+     * counts them in the metrics as addConnections would.
+     */
+    private void flushConnections() {
+        if (pendingCount == 0) {
+            return;
+        }
+        if (pendingByIndex) {
+            graph.addConnections(pendingFrom, pendingTo, pendingCount);
+            pendingFrom = new int[0];
+            pendingTo = new int[0];
+            pendingByIndex = false;
+        } else {
+            for (int i = 0; i < pendingCount; i++) {
+                graph.addConnections(pendingFromNames[i], pendingToNames[i]);
+                pendingFromNames[i] = null;
+                pendingToNames[i] = null;
+            }
+        }
+        pendingCount = 0;
+    }
+
+    /**
+     * Prints every user in the order named by a sort code from the print menu.
+     */
+    private void printUsers(String sort) {
+        switch (sort) {
+            case "SA":
+                graph.printAllUsers(new FollowGraph.NameComparator());
+                break;
+            case "SB":
+                graph.printAllUsers(new FollowGraph.FollowersComparator(graph));
+                break;
+            case "SC":
+                graph.printAllUsers(new FollowGraph.FollowingComparator(graph));
+                break;
+            case "SD":
+                graph.printAllUsers(new FollowGraph.InfluenceComparator(graph));
+                break;
+            default:
+                error("unknown sort " + sort);
+        }
+    }
+
+    /**
+     * Prints the degrees of separation, sampling the given number of users or all of them for 0.
+     */
+    private void printDistances(String sampleSize) {
+        int sample;
+        try {
+            sample = Integer.parseInt(sampleSize);
+        } catch (NumberFormatException e) {
+            error("DS expects a number of users to sample");
+            return;
+        }
+        DistanceStatistics stats = graph.distanceStatistics(sample, System.nanoTime());
+        for (int d = 1; d <= stats.maxDistance(); d++) {
+            out.println("Pairs at distance " + d + ": " + stats.pairsAtDistance(d));
+        }
+        out.println("Unreachable pairs: " + stats.unreachablePairs());
+        out.printf("Average degrees of separation: %.3f%n", stats.averageDistance());
+        out.println("Diameter" + (sample > 0 ? " (at least)" : "") + ": " + stats.approximateDiameter());
+    }
+
+    /**
+     * Prints up to ten recommendations for a user, using a metric code from the recommend menu.
+     */
+    private void recommend(String userName, String metricCode) {
+        Recommender.Metric metric;
+        switch (metricCode) {
+            case "FF":
+                metric = Recommender.Metric.FRIENDS_OF_FRIENDS;
+                break;
+            case "CF":
+                metric = Recommender.Metric.COMMON_FOLLOWERS;
+                break;
+            case "JC":
+                metric = Recommender.Metric.JACCARD;
+                break;
+            case "AA":
+                metric = Recommender.Metric.ADAMIC_ADAR;
+                break;
+            default:
+                error("unknown metric " + metricCode);
+                return;
+        }
+        for (String r : graph.recommend(userName, metric, 10)) {
+            out.println(r);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+import java.util.Arrays;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Dense adjacency store packing the follow matrix into long bitsets, one bit per pair of users.
+ * Each row holds the users a user follows and a transposed copy holds each user's followers, so both
+ * directions are scanned a word at a time: intersections such as common followers are word-wise ANDs
+ * whose set bits are walked with Long.numberOfTrailingZeros.
+ * Memory grows with the square of the number of users, so this store is meant for small or dense graphs.
+ */
+public final class BitsetAdjacency {
+    /**
+     * Largest number of vertices a store can hold, about 64 MB of bitsets
+     */
+    public static final int MAX_VERTICES = 16384;
+
+    private long[][] rows;     // rows[u] has bit v set if u follows v.
+    private long[][] columns;  // columns[v] has bit u set if u follows v.
+    private int capacity;      // Number of vertices the bitsets can hold, a multiple of 64.
+
+    /**
+     * Constructs an empty store for the given number of vertices.
+     *
+     * @param vertexCount the initial number of vertices
+     */
+    public BitsetAdjacency(int vertexCount) {
+        rows = new long[0][];
+        columns = new long[0][];
+        ensureCapacity(vertexCount);
+    }
+
+    /**
+     * Builds a dense copy of the first vertices of a sparse adjacency store.
+     *
+     * @param sparse      the sparse store to copy
+     * @param vertexCount the number of vertices to copy
+     * @return the dense store
+     */
+    public static BitsetAdjacency fromSparse(SparseAdjacency sparse, int vertexCount) {
+        BitsetAdjacency dense = new BitsetAdjacency(vertexCount);
+        for (int u = 0; u < vertexCount; u++) {
+            int[] neighbors = sparse.outNeighbors(u);
+            for (int k = 0; k < sparse.outDegree(u); k++) {
+                dense.addEdge(u, neighbors[k]);
+            }
+        }
+        return dense;
+    }
+
+    /**
+     * Gets the number of vertices the store can hold without growing.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Estimates the memory held by the store.
+     *
+     * @return the approximate size in bytes of both bitset copies
+     */
+    public long memoryBytes() {
+        return 2L * capacity * (16 + 8L * (capacity >>> 6));
+    }
+
+    /**
+     * Makes room for at least the given number of vertices, at least doubling the capacity when it grows
+     * since every existing row has to be widened, but never past MAX_VERTICES.
+     *
+     * @param vertexCount the number of vertices needed
+     * @throws IllegalArgumentException if more than MAX_VERTICES vertices are needed
+     */
+    public void ensureCapacity(int vertexCount) {
+        if (vertexCount <= capacity) {
+            return;
+        }
+        if (vertexCount > MAX_VERTICES) {
+            throw new IllegalArgumentException("A dense store holds at most " + MAX_VERTICES + " vertices");
+        }
+        int newCapacity = Math.min(MAX_VERTICES, Math.max(vertexCount, 2 * capacity));
+        newCapacity = (newCapacity + 63) & ~63;
+        int words = newCapacity >>> 6;
+        rows = widen(rows, newCapacity, words);
+        columns = widen(columns, newCapacity, words);
+        capacity = newCapacity;
+    }
+
+    /**
+     * Copies a bitset matrix into more and longer rows.
+     */
+    private static long[][] widen(long[][] old, int count, int words) {
+        long[][] wider = new long[count][];
+        for (int i = 0; i < count; i++) {
+            wider[i] = i < old.length ? Arrays.copyOf(old[i], words) : new long[words];
+        }
+        return wider;
+    }
+
+    /**
+     * Adds the connection u follows v.
+     *
+     * @param u the user initiating the connection
+     * @param v the user receiving the connection
+     */
+    public void addEdge(int u, int v) {
+        rows[u][v >>> 6] |= 1L << v;
+        columns[v][u >>> 6] |= 1L << u;
+    }
+
+    /**
+     * Removes the connection u follows v.
+     *
+     * @param u the user initiating the connection
+     * @param v the user receiving the connection
+     */
+    public void removeEdge(int u, int v) {
+        rows[u][v >>> 6] &= ~(1L << v);
+        columns[v][u >>> 6] &= ~(1L << u);
+    }
+
+    /**
+     * Removes every connection to and from a vertex, one word at a time.
+     *
+     * @param v the vertex
+     */
+    public void clearVertex(int v) {
+        clearLine(rows[v], columns, v);
+        clearLine(columns[v], rows, v);
+    }
+
+    /**
+     * Clears one row or column and the matching bits of the transposed copy.
+     */
+    private static void clearLine(long[] line, long[][] transposed, int v) {
+        for (int w = 0; w < line.length; w++) {
+            long bits = line[w];
+            while (bits != 0) {
+                int x = (w << 6) + Long.numberOfTrailingZeros(bits);
+                transposed[x][v >>> 6] &= ~(1L << v);
+                bits &= bits - 1;
+            }
+            line[w] = 0;
+        }
+    }
+
+    /**
+     * Lists the users who follow u and are followed by u, in index order.
+     *
+     * @param u the user
+     * @return the mutual follows
+     */
+    public int[] mutual(int u) {
+        return members(rows[u], columns[u]);
+    }
+
+    /**
+     * Lists the users who follow both a and b, in index order.
+     *
+     * @param a the first user
+     * @param b the second user
+     * @return the common followers
+     */
+    public int[] commonFollowers(int a, int b) {
+        return members(columns[a], columns[b]);
+    }
+
+    /**
+     * Lists the users followed by both a and b, in index order.
+     *
+     * @param a the first user
+     * @param b the second user
+     * @return the users both follow
+     */
+    public int[] commonFollowing(int a, int b) {
+        return members(rows[a], rows[b]);
+    }
+
+    /**
+     * Lists the set bits of the AND of two bitsets.
+     *
+     * @param a the first bitset
+     * @param b the second bitset
+     * @return the indices of the set bits in ascending order
+     */
+    private static int[] members(long[] a, long[] b) {
+        int count = 0;
+        for (int w = 0; w < a.length; w++) {
+            count += Long.bitCount(a[w] & b[w]);
+        }
+        int[] result = new int[count];
+        int n = 0;
+        for (int w = 0; w < a.length && n < count; w++) {
+            long bits = a[w] & b[w];
+            while (bits != 0) {
+                result[n++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return result;
+    }
+}
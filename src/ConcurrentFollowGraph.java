@@ -0,0 +1,444 @@
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * A thread-safe view of a FollowGraph for serving lookups from many threads while follows and
+ * unfollows are being applied.
+ * Mutations run one at a time under the write side of a StampedLock. Cheap queries run as optimistic
+ * reads that take no lock at all: the query runs, and if a writer got in meanwhile its result is thrown
+ * away and the query is repeated under the read lock. Every mutation is short, so readers almost never
+ * have to wait. Whole-graph operations such as loop and path enumeration always take the read lock.
+ * An optimistic query may run against a half-applied change before it is thrown away, so it may only
+ * leave behind state that cannot outlive that change: its own thread-local scratch space, and path
+ * cache entries, which are tagged with the version read before the search and never served once the
+ * version has moved on. Queries that build the component cache, the reachability index or the degree
+ * rankings, which writers carry forward to the next version, always run under the read lock.
+ */
+public class ConcurrentFollowGraph {
+    private final FollowGraph graph;
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Constructs a concurrent view over an empty graph.
+     */
+    public ConcurrentFollowGraph() {
+        this(new FollowGraph());
+    }
+
+    /**
+     * Constructs a concurrent view over an existing graph. The graph must not be used directly afterwards.
+     *
+     * @param graph the graph to wrap
+     */
+    public ConcurrentFollowGraph(FollowGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Adds a new user to the graph if the user does not already exist.
+     *
+     * @param userName the name of the user to be added
+     * @return true if the user was added, false if the name is null or already taken
+     */
+    public boolean addUser(String userName) {
+        long stamp = lock.writeLock();
+        try {
+            return graph.addUser(userName);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a user and all their connections from the graph.
+     *
+     * @param userName the username to be removed
+     */
+    public void removeUser(String userName) {
+        long stamp = lock.writeLock();
+        try {
+            graph.removeUser(userName);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds a connection from one user to another.
+     *
+     * @param userFrom the username initiating the connection
+     * @param userTo   the username receiving the connection
+     * @return true if a new connection was added
+     */
+    public boolean addConnections(String userFrom, String userTo) {
+        long stamp = lock.writeLock();
+        try {
+            return graph.addConnections(userFrom, userTo);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a connection between two users.
+     *
+     * @param userFrom the username initiating the connection
+     * @param userTo   the username receiving the connection
+     * @return true if the connection was removed
+     */
+    public boolean removeConnection(String userFrom, String userTo) {
+        long stamp = lock.writeLock();
+        try {
+            return graph.removeConnection(userFrom, userTo);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a user and all their connections from the graph, naming the user by ID.
+     *
+     * @param id the ID of the user to be removed
+     */
+    public void removeUserById(int id) {
+        long stamp = lock.writeLock();
+        try {
+            graph.removeUserById(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds a connection from one user to another, naming the users by ID.
+     *
+     * @param fromId the ID of the user initiating the connection
+     * @param toId   the ID of the user receiving the connection
+     * @return true if a new connection was added
+     */
+    public boolean addConnectionById(int fromId, int toId) {
+        long stamp = lock.writeLock();
+        try {
+            return graph.addConnectionById(fromId, toId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a connection between two users, naming the users by ID.
+     *
+     * @param fromId the ID of the user initiating the connection
+     * @param toId   the ID of the user receiving the connection
+     * @return true if the connection was removed
+     */
+    public boolean removeConnectionById(int fromId, int toId) {
+        long stamp = lock.writeLock();
+        try {
+            return graph.removeConnectionById(fromId, toId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Finds the ID of a user by their username.
+     *
+     * @param userName the name of the user to search for
+     * @return the ID of the user, or -1 if the user does not exist
+     */
+    public int idOf(String userName) {
+        return read(() -> graph.idOf(userName));
+    }
+
+    /**
+     * Finds a user by their ID.
+     *
+     * @param id the ID of the user
+     * @return the User object if found, otherwise null
+     */
+    public User getUserById(int id) {
+        return read(() -> graph.getUserById(id));
+    }
+
+    /**
+     * Gets the number of followers of a user named by ID.
+     *
+     * @param id the ID of the user
+     * @return the number of followers, or 0 if the user does not exist
+     */
+    public int getFollowerCountById(int id) {
+        return read(() -> graph.getFollowerCountById(id));
+    }
+
+    /**
+     * Gets the number of users a user named by ID is following.
+     *
+     * @param id the ID of the user
+     * @return the number of users followed, or 0 if the user does not exist
+     */
+    public int getFollowingCountById(int id) {
+        return read(() -> graph.getFollowingCountById(id));
+    }
+
+    /**
+     * Gets the IDs of all followers of a user named by ID.
+     *
+     * @param id the ID of the user
+     * @return the follower IDs, or an empty array if the user does not exist
+     */
+    public int[] getFollowerIds(int id) {
+        return read(() -> graph.getFollowerIds(id));
+    }
+
+    /**
+     * Gets the IDs of all users a user named by ID is following.
+     *
+     * @param id the ID of the user
+     * @return the IDs of the users followed, or an empty array if the user does not exist
+     */
+    public int[] getFollowingIds(int id) {
+        return read(() -> graph.getFollowingIds(id));
+    }
+
+    /**
+     * Finds and returns a user object by their username.
+     *
+     * @param userName the name of the user to search for
+     * @return the User object if found, otherwise null
+     */
+    public User getUserByName(String userName) {
+        return read(() -> graph.getUserByName(userName));
+    }
+
+    /**
+     * Gets the number of followers of a user.
+     *
+     * @param userName the username of the user
+     * @return the number of followers, or 0 if the user does not exist
+     */
+    public int getFollowerCount(String userName) {
+        return read(() -> graph.getFollowerCount(userName));
+    }
+
+    /**
+     * Gets the number of users a user is following.
+     *
+     * @param userName the username of the user
+     * @return the number of users followed, or 0 if the user does not exist
+     */
+    public int getFollowingCount(String userName) {
+        return read(() -> graph.getFollowingCount(userName));
+    }
+
+    /**
+     * Gets the usernames of all followers of a user.
+     *
+     * @param userName the username of the user
+     * @return the followers, or an empty list if the user does not exist
+     */
+    public List<String> getFollowers(String userName) {
+        return read(() -> graph.getFollowers(userName));
+    }
+
+    /**
+     * Gets the usernames of all users a user is following.
+     *
+     * @param userName the username of the user
+     * @return the users followed, or an empty list if the user does not exist
+     */
+    public List<String> getFollowing(String userName) {
+        return read(() -> graph.getFollowing(userName));
+    }
+
+    /**
+     * Gets the users who follow a user and are followed back by them.
+     *
+     * @param userName the username of the user
+     * @return the mutual follows, or an empty list if the user does not exist
+     */
+    public List<String> mutualFollows(String userName) {
+        return read(() -> graph.mutualFollows(userName));
+    }
+
+    /**
+     * Gets the users who follow both of two users.
+     *
+     * @param userA the username of the first user
+     * @param userB the username of the second user
+     * @return the common followers, or an empty list if either user does not exist
+     */
+    public List<String> commonFollowers(String userA, String userB) {
+        return read(() -> graph.commonFollowers(userA, userB));
+    }
+
+    /**
+     * Gets the users followed by both of two users.
+     *
+     * @param userA the username of the first user
+     * @param userB the username of the second user
+     * @return the users both follow, or an empty list if either user does not exist
+     */
+    public List<String> commonFollowing(String userA, String userB) {
+        return read(() -> graph.commonFollowing(userA, userB));
+    }
+
+    /**
+     * Finds the shortest path between two users.
+     *
+     * @param userFrom the starting user
+     * @param userTo   the target user
+     * @return a string representation of the shortest path, or a message if no path exists
+     */
+    public String shortestPath(String userFrom, String userTo) {
+        return read(() -> graph.shortestPath(userFrom, userTo));
+    }
+
+    /**
+     * Finds the shortest path between two users, optionally searching from both ends.
+     *
+     * @param userFrom      the starting user
+     * @param userTo        the target user
+     * @param bidirectional whether to search from both ends at once
+     * @return a string representation of the shortest path, or a message if no path exists
+     */
+    public String shortestPath(String userFrom, String userTo, boolean bidirectional) {
+        return read(() -> graph.shortestPath(userFrom, userTo, bidirectional));
+    }
+
+    /**
+     * Checks whether one user can reach another by following connections.
+     * Runs under the read lock rather than optimistically, because the first call after a mutation
+     * builds the component cache and reachability index and writers carry them forward.
+     *
+     * @param userFrom the username of the starting user
+     * @param userTo   the username of the target user
+     * @return true if there is a path from one user to the other
+     */
+    public boolean canReach(String userFrom, String userTo) {
+        return readLocked(() -> graph.canReach(userFrom, userTo));
+    }
+
+    /**
+     * Recommends users for a user to follow.
+     *
+     * @param userName the username of the user
+     * @param metric   how candidates are scored
+     * @param k        the largest number of users to recommend
+     * @return the usernames of the recommended users, best first
+     */
+    public List<String> recommend(String userName, Recommender.Metric metric, int k) {
+        return read(() -> graph.recommend(userName, metric, k));
+    }
+
+    /**
+     * Gets the users with the most followers.
+     * Runs under the read lock rather than optimistically: the first call builds the ranking that
+     * writers then keep up to date, so it must never be built from a graph a writer is halfway through.
+     *
+     * @param k the largest number of users to return
+     * @return the usernames, most followers first
+     */
+    public List<String> topFollowed(int k) {
+        return readLocked(() -> graph.topFollowed(k));
+    }
+
+    /**
+     * Gets the users following the most users. Runs under the read lock for the same reason as topFollowed.
+     *
+     * @param k the largest number of users to return
+     * @return the usernames, most users followed first
+     */
+    public List<String> topFollowing(int k) {
+        return readLocked(() -> graph.topFollowing(k));
+    }
+
+    /**
+     * Finds all paths between two users.
+     *
+     * @param userFrom the username of the starting user
+     * @param userTo   the username of the target user
+     * @return a list of all paths from the starting user to the target user
+     */
+    public List<String> allPaths(String userFrom, String userTo) {
+        return readLocked(() -> graph.allPaths(userFrom, userTo));
+    }
+
+    /**
+     * Finds all loops in the graph.
+     *
+     * @return a list of all loops in the graph
+     */
+    public List<String> findAllLoops() {
+        return readLocked(graph::findAllLoops);
+    }
+
+    /**
+     * Prints all users in the graph sorted by a given comparator.
+     *
+     * @param comp the comparator to use for sorting users
+     */
+    public void printAllUsers(Comparator<User> comp) {
+        readLocked(() -> {
+            graph.printAllUsers(comp);
+            return null;
+        });
+    }
+
+    /**
+     * Saves the graph. Saving compacts the user slots, so writers are held off while it runs.
+     */
+    public void saveGraph() {
+        long stamp = lock.writeLock();
+        try {
+            graph.saveGraph();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Runs a query as an optimistic read, falling back to the read lock if a writer interfered.
+     * A query racing with a writer may see the graph half-updated and fail, so any runtime exception
+     * from the optimistic attempt is treated like a failed validation.
+     *
+     * @param query the query to run
+     * @return the result of the query
+     */
+    private <T> T read(Supplier<T> query) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = query.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // The graph changed underneath the query; retry below under the read lock.
+            }
+        }
+        return readLocked(query);
+    }
+
+    /**
+     * Runs a query under the read lock.
+     *
+     * @param query the query to run
+     * @return the result of the query
+     */
+    private <T> T readLocked(Supplier<T> query) {
+        long stamp = lock.readLock();
+        try {
+            return query.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
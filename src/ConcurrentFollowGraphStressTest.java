@@ -0,0 +1,302 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Stress test for ConcurrentFollowGraph, checking that follows and unfollows applied from many threads
+ * behave as if they had run one at a time.
+ * Each writer thread owns a disjoint share of the possible connections and follows or unfollows random
+ * pairs from its share. Since no other thread touches those connections, the result of every call is
+ * known in advance, and a wrong one means the call was not applied atomically. Meanwhile reader threads
+ * run lookups, path searches, reachability checks and recommendations, checking that what they see is
+ * well formed. At the end every writer's calls are replayed one at a time on a plain FollowGraph, and the
+ * connections, follower and following counts, paths and reachability of both graphs must agree.
+ * <p>
+ * Usage: java ConcurrentFollowGraphStressTest [--users N] [--writers N] [--readers N] [--ops N] [--seed N]
+ */
+public class ConcurrentFollowGraphStressTest {
+    private final int users;
+    private final int writers;
+    private final int ops;
+    private final ConcurrentFollowGraph graph = new ConcurrentFollowGraph();
+    private final AtomicBoolean writing = new AtomicBoolean(true);
+    private final AtomicLong reads = new AtomicLong();
+
+    /**
+     * Constructs a stress test.
+     *
+     * @param users   the number of users in the graph
+     * @param writers the number of writer threads
+     * @param ops     the number of follows and unfollows each writer makes
+     */
+    public ConcurrentFollowGraphStressTest(int users, int writers, int ops) {
+        this.users = users;
+        this.writers = writers;
+        this.ops = ops;
+    }
+
+    /**
+     * Runs the stress test, exiting with status 1 if any check fails.
+     *
+     * @param args the options described in the class comment
+     * @throws Exception if the test cannot run
+     */
+    public static void main(String[] args) throws Exception {
+        int users = 300;
+        int writers = 4;
+        int readers = 4;
+        int ops = 200_000;
+        long seed = 42;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--users" -> users = Integer.parseInt(args[++i]);
+                case "--writers" -> writers = Integer.parseInt(args[++i]);
+                case "--readers" -> readers = Integer.parseInt(args[++i]);
+                case "--ops" -> ops = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (users < 1 || users > 10_000 || writers < 1) {
+            throw new IllegalArgumentException("Need 1 to 10000 users and at least one writer");
+        }
+
+        ConcurrentFollowGraphStressTest test = new ConcurrentFollowGraphStressTest(users, writers, ops);
+        long start = System.nanoTime();
+        try {
+            int[][] history = test.run(readers, seed);
+            test.verify(history, seed);
+        } catch (ExecutionException e) {
+            System.out.println("FAILED: " + e.getCause().getMessage());
+            System.exit(1);
+        } catch (IllegalStateException e) {
+            System.out.println("FAILED: " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.printf(Locale.ROOT, "OK: %d writers made %d follows and unfollows alongside %d reads in %.1f s.%n",
+                writers, (long) writers * ops, test.reads.get(), (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Runs the writers and readers until every writer is done.
+     *
+     * @param readers the number of reader threads
+     * @param seed    the seed of the threads' random choices
+     * @return each writer's calls, encoded by encode in the order they were made
+     * @throws ExecutionException if a thread saw a result that could not happen
+     */
+    private int[][] run(int readers, long seed) throws InterruptedException, ExecutionException {
+        for (int u = 0; u < users; u++) {
+            graph.addUser(name(u));
+        }
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Future<int[]>> writerTasks = new ArrayList<>();
+        List<Future<?>> readerTasks = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(writers + readers)) {
+            for (int r = 0; r < readers; r++) {
+                SplittableRandom random = seeds.split();
+                readerTasks.add(pool.submit(() -> {
+                    reader(random);
+                    return null;
+                }));
+            }
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                SplittableRandom random = seeds.split();
+                writerTasks.add(pool.submit(() -> writer(writer, random)));
+            }
+            int[][] history = new int[writers][];
+            try {
+                for (int w = 0; w < writers; w++) {
+                    history[w] = writerTasks.get(w).get();
+                }
+            } finally {
+                writing.set(false);
+            }
+            for (Future<?> task : readerTasks) {
+                task.get();
+            }
+            return history;
+        }
+    }
+
+    /**
+     * Follows and unfollows random pairs from a writer's share, checking each result against the
+     * connections the writer knows it has made.
+     *
+     * @param writer the number of the writer
+     * @param random the source of the writer's choices
+     * @return the writer's calls, encoded by encode in the order they were made
+     */
+    private int[] writer(int writer, SplittableRandom random) {
+        boolean[] connected = new boolean[users * users];
+        int[] history = new int[ops];
+        for (int k = 0; k < ops; k++) {
+            int from;
+            int to;
+            do {
+                from = random.nextInt(users);
+                to = random.nextInt(users);
+            } while ((from + to) % writers != writer);
+            boolean follow = random.nextBoolean();
+            int pair = from * users + to;
+            if (follow) {
+                if (graph.addConnections(name(from), name(to)) == connected[pair]) {
+                    throw new IllegalStateException("follow " + from + " -> " + to + " returned the wrong result");
+                }
+                connected[pair] = true;
+            } else {
+                if (graph.removeConnection(name(from), name(to)) != connected[pair]) {
+                    throw new IllegalStateException("unfollow " + from + " -> " + to + " returned the wrong result");
+                }
+                connected[pair] = false;
+            }
+            history[k] = encode(from, to, follow);
+        }
+        return history;
+    }
+
+    /**
+     * Runs queries until the writers are done, checking that each answer is well formed.
+     *
+     * @param random the source of the reader's choices
+     */
+    private void reader(SplittableRandom random) {
+        while (writing.get()) {
+            String a = name(random.nextInt(users));
+            String b = name(random.nextInt(users));
+            switch (random.nextInt(5)) {
+                case 0 -> checkNames(graph.getFollowers(a), "followers of " + a);
+                case 1 -> checkNames(graph.getFollowing(a), "following of " + a);
+                case 2 -> {
+                    String path = graph.shortestPath(a, b, random.nextBoolean());
+                    String[] hops = path.split(" -> ");
+                    if (!path.equals("No path found.") && !(hops[0].equals(a) && hops[hops.length - 1].equals(b))) {
+                        throw new IllegalStateException("path from " + a + " to " + b + " was " + path);
+                    }
+                }
+                case 3 -> {
+                    if (!graph.canReach(a, a)) {
+                        throw new IllegalStateException(a + " cannot reach themselves");
+                    }
+                    graph.canReach(a, b);
+                }
+                default -> checkNames(graph.recommend(a, Recommender.Metric.ADAMIC_ADAR, 10), "recommendations for " + a);
+            }
+            int count = graph.getFollowerCount(a);
+            if (count < 0 || count > users) {
+                throw new IllegalStateException(a + " has " + count + " followers");
+            }
+            reads.incrementAndGet();
+        }
+    }
+
+    /**
+     * Checks that a list of users names only existing users, each at most once.
+     */
+    private void checkNames(List<String> names, String what) {
+        Set<String> seen = new HashSet<>();
+        for (String n : names) {
+            if (!n.startsWith("user") || !seen.add(n)) {
+                throw new IllegalStateException(what + " were " + names);
+            }
+        }
+    }
+
+    /**
+     * Replays every writer's calls one at a time on a plain graph and compares the two graphs.
+     * Writers own disjoint connections, so the order in which their calls are interleaved does not
+     * change the result.
+     *
+     * @param history each writer's calls, encoded by encode in the order they were made
+     * @param seed    the seed of the sampled path and reachability checks
+     */
+    private void verify(int[][] history, long seed) {
+        FollowGraph expected = new FollowGraph();
+        for (int u = 0; u < users; u++) {
+            expected.addUser(name(u));
+        }
+        for (int[] calls : history) {
+            for (int call : calls) {
+                int from = call >>> 1;
+                int to = from % users;
+                from /= users;
+                if ((call & 1) == 1) {
+                    expected.addConnections(name(from), name(to));
+                } else {
+                    expected.removeConnection(name(from), name(to));
+                }
+            }
+        }
+
+        for (int u = 0; u < users; u++) {
+            String user = name(u);
+            List<String> following = sorted(graph.getFollowing(user));
+            if (!following.equals(sorted(expected.getFollowing(user)))) {
+                throw new IllegalStateException(user + " follows " + following + " but replay gives "
+                        + sorted(expected.getFollowing(user)));
+            }
+            if (!sorted(graph.getFollowers(user)).equals(sorted(expected.getFollowers(user)))) {
+                throw new IllegalStateException(user + " has different followers than the replay");
+            }
+            if (graph.getFollowerCount(user) != expected.getFollowerCount(user)
+                    || graph.getFollowingCount(user) != expected.getFollowingCount(user)) {
+                throw new IllegalStateException(user + " has different counts than the replay");
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int k = 0; k < 1000; k++) {
+            String a = name(random.nextInt(users));
+            String b = name(random.nextInt(users));
+            if (graph.canReach(a, b) != expected.canReach(a, b)) {
+                throw new IllegalStateException("reachability from " + a + " to " + b + " differs from the replay");
+            }
+            String path = graph.shortestPath(a, b);
+            String replayed = expected.shortestPath(a, b);
+            if (path.split(" -> ").length != replayed.split(" -> ").length
+                    || path.equals("No path found.") != replayed.equals("No path found.")) {
+                throw new IllegalStateException("path from " + a + " to " + b + " was " + path
+                        + " but replay gives " + replayed);
+            }
+        }
+    }
+
+    /**
+     * Packs a call into an int: the pair of users above the lowest bit, which is 1 for a follow.
+     */
+    private int encode(int from, int to, boolean follow) {
+        return (from * users + to) << 1 | (follow ? 1 : 0);
+    }
+
+    /**
+     * Gets the name of a synthetic user.
+     */
+    private static String name(int user) {
+        return "user" + user;
+    }
+
+    /**
+     * Gets a sorted copy of a list of names.
+     */
+    private static List<String> sorted(List<String> names) {
+        String[] array = names.toArray(new String[0]);
+        Arrays.sort(array);
+        return Arrays.asList(array);
+    }
+}
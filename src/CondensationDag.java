@@ -0,0 +1,134 @@
+import java.util.Arrays;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * The condensation of a follow graph: one node per strongly connected component, with an edge from
+ * component a to component b whenever some user in a follows some user in b. The result has no cycles.
+ * Successors are stored in one flat array, sorted and without duplicates, and always have lower
+ * component ids than their predecessor because of the way Tarjan's algorithm numbers components.
+ */
+public class CondensationDag {
+    private final int[] offsets;     // Start of each component's successors in the successors array.
+    private final int[] successors;  // Successor components grouped by component.
+
+    /**
+     * Builds the condensation of an adjacency store.
+     *
+     * @param adjacency  the adjacency store
+     * @param components the strongly connected components of the adjacency store
+     */
+    public CondensationDag(SparseAdjacency adjacency, StronglyConnectedComponents components) {
+        int count = components.componentCount();
+        int vertexCount = components.vertexCount();
+        int[] seen = new int[count];  // Component plus one whose successors last included each component.
+        offsets = new int[count + 1];
+        int[] list = new int[Math.max(16, count)];
+        int size = 0;
+        for (int c = 0; c < count; c++) {
+            int start = size;
+            for (int i = 0; i < components.componentSize(c); i++) {
+                int v = components.member(c, i);
+                int[] neighbors = adjacency.outNeighbors(v);
+                for (int k = 0; k < adjacency.outDegree(v); k++) {
+                    int w = neighbors[k];
+                    if (w >= vertexCount) {
+                        continue;
+                    }
+                    int d = components.componentOf(w);
+                    if (d != c && seen[d] != c + 1) {
+                        seen[d] = c + 1;
+                        if (size == list.length) {
+                            list = Arrays.copyOf(list, size + (size >> 1));
+                        }
+                        list[size++] = d;
+                    }
+                }
+            }
+            Arrays.sort(list, start, size);
+            offsets[c + 1] = size;
+        }
+        successors = Arrays.copyOf(list, size);
+    }
+
+    /**
+     * Gets the number of components.
+     *
+     * @return the component count
+     */
+    public int componentCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Gets the number of edges between components.
+     *
+     * @return the edge count
+     */
+    public int edgeCount() {
+        return successors.length;
+    }
+
+    /**
+     * Gets the number of components a component has edges to.
+     *
+     * @param c the component id
+     * @return the number of successors
+     */
+    public int successorCount(int c) {
+        return offsets[c + 1] - offsets[c];
+    }
+
+    /**
+     * Gets a successor of a component. Successors are in ascending order.
+     *
+     * @param c the component id
+     * @param i the position of the successor, from 0 to successorCount(c) - 1
+     * @return the successor component id
+     */
+    public int successor(int c, int i) {
+        return successors[offsets[c] + i];
+    }
+
+    /**
+     * Checks whether one component can reach another. The search never enters components numbered
+     * below the target, since those cannot lead back up to it.
+     *
+     * @param from the starting component id
+     * @param to   the target component id
+     * @return true if there is a path from one component to the other
+     */
+    public boolean reaches(int from, int to) {
+        if (from == to) {
+            return true;
+        }
+        if (from < to) {
+            return false;
+        }
+        boolean[] visited = new boolean[from - to + 1];
+        int[] stack = new int[from - to + 1];
+        int top = 0;
+        stack[top++] = from;
+        visited[from - to] = true;
+        while (top > 0) {
+            int c = stack[--top];
+            for (int k = offsets[c + 1] - 1; k >= offsets[c]; k--) {
+                int d = successors[k];
+                if (d < to) {
+                    break;
+                }
+                if (d == to) {
+                    return true;
+                }
+                if (!visited[d - to]) {
+                    visited[d - to] = true;
+                    stack[top++] = d;
+                }
+            }
+        }
+        return false;
+    }
+}
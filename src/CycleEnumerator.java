@@ -0,0 +1,285 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Lazily enumerates the elementary cycles of a follow graph with Johnson's algorithm.
+ * The search runs inside one strongly connected component at a time, so users that are not on any
+ * cycle are never searched from. Each cycle is found exactly once, starting at its lowest-index user,
+ * and is returned as the vertex indices around the cycle with the starting vertex repeated at the end.
+ * When a maximum length is given, Johnson's blocking rule no longer holds, so the search only prunes
+ * users already on the current path; the length bound keeps that search small.
+ * The graph must not be modified while an enumerator is in use.
+ */
+public class CycleEnumerator implements Iterator<int[]> {
+    /**
+     * Value for maxLength meaning no limit
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final SparseAdjacency adjacency;
+    private final StronglyConnectedComponents components;
+    private final int minLength;
+    private final int maxLength;
+
+    private final int[] path;          // Vertices on the current path, path[0] is the start vertex.
+    private final int[] cursor;        // Next neighbor to try at each depth.
+    private final boolean[] found;     // Whether a cycle was found below each depth.
+    private final int[] blockedStamp;  // Equal to stamp while a vertex is blocked.
+    private final int[] blockStamp;    // Equal to stamp while a vertex's block list is in use.
+    private final int[][] blockList;   // Johnson's B lists.
+    private final int[] blockSize;
+    private final int[] unblockStack;
+    private int stamp;
+
+    private int componentIndex = -1;   // Component currently being searched.
+    private int startIndex;            // Position of the start vertex within the component.
+    private int start = -1;            // Start vertex of the current search.
+    private int depth = -1;            // Index of the last vertex on the path, or -1 between searches.
+    private int[] nextCycle;           // Cycle found but not yet returned.
+    private boolean exhausted;
+    private long visited;              // Vertices pushed onto the path so far.
+
+    /**
+     * Constructs an enumerator over every elementary cycle.
+     *
+     * @param adjacency  the adjacency store to search
+     * @param components the strongly connected components of the adjacency store
+     */
+    public CycleEnumerator(SparseAdjacency adjacency, StronglyConnectedComponents components) {
+        this(adjacency, components, 1, UNLIMITED);
+    }
+
+    /**
+     * Constructs an enumerator over the elementary cycles within a range of lengths.
+     * The length of a cycle is its number of connections; a user following itself is a cycle of length 1.
+     *
+     * @param adjacency  the adjacency store to search
+     * @param components the strongly connected components of the adjacency store
+     * @param minLength  the smallest cycle length to return
+     * @param maxLength  the largest cycle length to return, or UNLIMITED
+     */
+    public CycleEnumerator(SparseAdjacency adjacency, StronglyConnectedComponents components,
+                           int minLength, int maxLength) {
+        this.adjacency = adjacency;
+        this.components = components;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        int n = components.vertexCount();
+        path = new int[n + 1];
+        cursor = new int[n + 1];
+        found = new boolean[n + 1];
+        blockedStamp = new int[n];
+        blockStamp = new int[n];
+        blockList = new int[n][];
+        blockSize = new int[n];
+        unblockStack = new int[n];
+    }
+
+    /**
+     * Gets the number of times a user has been added to the search path so far, counting each start
+     * vertex, so this measures the work done by the search.
+     *
+     * @return the number of users visited
+     */
+    public long visited() {
+        return visited;
+    }
+
+    /**
+     * Checks whether there is another cycle, searching for it if necessary.
+     *
+     * @return true if another cycle is available
+     */
+    public boolean hasNext() {
+        if (nextCycle == null && !exhausted) {
+            nextCycle = advance();
+            exhausted = nextCycle == null;
+        }
+        return nextCycle != null;
+    }
+
+    /**
+     * Gets the next cycle.
+     *
+     * @return the vertex indices around the cycle, with the first vertex repeated at the end
+     * @throws NoSuchElementException if there are no more cycles
+     */
+    public int[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int[] cycle = nextCycle;
+        nextCycle = null;
+        return cycle;
+    }
+
+    /**
+     * Resumes the search until the next cycle within the length bounds is found.
+     *
+     * @return the next cycle, or null once every component has been searched
+     */
+    private int[] advance() {
+        while (true) {
+            if (depth < 0 && !startNextSearch()) {
+                return null;
+            }
+            int[] cycle = step();
+            if (cycle != null) {
+                return cycle;
+            }
+        }
+    }
+
+    /**
+     * Moves on to the next start vertex, skipping components that contain no cycle.
+     *
+     * @return false once there are no start vertices left
+     */
+    private boolean startNextSearch() {
+        while (true) {
+            if (componentIndex >= 0 && startIndex + 1 < components.componentSize(componentIndex)) {
+                startIndex++;
+            } else {
+                do {
+                    componentIndex++;
+                    if (componentIndex >= components.componentCount()) {
+                        return false;
+                    }
+                } while (!components.isCyclic(componentIndex));
+                startIndex = 0;
+            }
+            start = components.member(componentIndex, startIndex);
+            stamp++;
+            if (stamp == 0) {
+                Arrays.fill(blockedStamp, 0);
+                Arrays.fill(blockStamp, 0);
+                stamp = 1;
+            }
+            depth = 0;
+            visited++;
+            path[0] = start;
+            cursor[0] = 0;
+            found[0] = false;
+            blockedStamp[start] = stamp;
+            return true;
+        }
+    }
+
+    /**
+     * Runs the circuit search from the current start vertex until it finds a cycle or finishes.
+     *
+     * @return the cycle found, or null if the search from this start vertex is finished
+     */
+    private int[] step() {
+        while (depth >= 0) {
+            int v = path[depth];
+            int[] neighbors = adjacency.outNeighbors(v);
+            if (cursor[depth] < adjacency.outDegree(v)) {
+                int w = neighbors[cursor[depth]++];
+                if (!allowed(w)) {
+                    continue;
+                }
+                if (w == start) {
+                    found[depth] = true;
+                    int length = depth + 1;
+                    if (length >= minLength && length <= maxLength) {
+                        int[] cycle = Arrays.copyOf(path, depth + 2);
+                        cycle[depth + 1] = start;
+                        return cycle;
+                    }
+                } else if (blockedStamp[w] != stamp && depth + 1 < maxLength) {
+                    depth++;
+                    path[depth] = w;
+                    cursor[depth] = 0;
+                    found[depth] = false;
+                    blockedStamp[w] = stamp;
+                    visited++;
+                }
+            } else {
+                finish(v, found[depth]);
+                depth--;
+                if (depth >= 0 && found[depth + 1]) {
+                    found[depth] = true;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Leaves a vertex: unblocks it if a cycle was found through it, otherwise records it in the block
+     * lists of its neighbors so it is unblocked as soon as one of them is.
+     * With a length bound a vertex is always unblocked, since a failed search from one depth says nothing
+     * about the same vertex reached at a shallower depth.
+     */
+    private void finish(int v, boolean foundCycle) {
+        if (foundCycle || maxLength != UNLIMITED) {
+            unblock(v);
+            return;
+        }
+        int[] neighbors = adjacency.outNeighbors(v);
+        for (int k = 0; k < adjacency.outDegree(v); k++) {
+            int w = neighbors[k];
+            if (allowed(w)) {
+                addToBlockList(w, v);
+            }
+        }
+    }
+
+    /**
+     * Unblocks a vertex and, transitively, every vertex waiting in its block list.
+     */
+    private void unblock(int u) {
+        int top = 0;
+        unblockStack[top++] = u;
+        blockedStamp[u] = 0;
+        while (top > 0) {
+            int x = unblockStack[--top];
+            if (blockStamp[x] != stamp) {
+                continue;
+            }
+            for (int k = 0; k < blockSize[x]; k++) {
+                int w = blockList[x][k];
+                if (blockedStamp[w] == stamp) {
+                    blockedStamp[w] = 0;
+                    unblockStack[top++] = w;
+                }
+            }
+            blockSize[x] = 0;
+        }
+    }
+
+    /**
+     * Adds v to the block list of w unless it is already there.
+     */
+    private void addToBlockList(int w, int v) {
+        if (blockStamp[w] != stamp) {
+            blockStamp[w] = stamp;
+            blockSize[w] = 0;
+        }
+        int[] list = blockList[w];
+        for (int k = 0; k < blockSize[w]; k++) {
+            if (list[k] == v) {
+                return;
+            }
+        }
+        if (list == null || blockSize[w] == list.length) {
+            list = blockList[w] = list == null ? new int[4] : Arrays.copyOf(list, blockSize[w] * 2);
+        }
+        list[blockSize[w]++] = v;
+    }
+
+    /**
+     * Checks whether a vertex may be used by the current search: it must be in the same component as
+     * the start vertex and must not come before it.
+     */
+    private boolean allowed(int w) {
+        return w >= start && w < components.vertexCount() && components.componentOf(w) == componentIndex;
+    }
+}
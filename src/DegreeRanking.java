@@ -0,0 +1,172 @@
+import java.util.Arrays;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Vertices kept in descending order of a degree, updated in O(1) as the degree moves up or down by one.
+ * The order is one array split into consecutive blocks of equal degree, highest degree first, with the
+ * start of every block recorded. Raising a vertex's degree swaps it with the first vertex of its block
+ * and moves the block boundary past it, which leaves it at the end of the next block up; lowering works
+ * the same way at the other end. The top K vertices are simply the first K entries.
+ * Vertices with equal degree are in no particular order.
+ */
+public class DegreeRanking {
+    private int[] order;     // Vertices, highest degree first.
+    private int[] position;  // Index of each vertex in order, or -1 if not ranked.
+    private int[] degree;    // Degree of each ranked vertex.
+    private int[] start;     // Index in order of the first vertex of each degree.
+    private int size;        // Number of ranked vertices.
+    private int maxDegree;   // Highest degree a block has been opened for.
+
+    /**
+     * Builds a ranking with a counting sort.
+     *
+     * @param degrees the degree of each vertex slot
+     * @param live    whether each vertex slot should be ranked
+     */
+    public DegreeRanking(int[] degrees, boolean[] live) {
+        int capacity = Math.max(16, degrees.length);
+        order = new int[capacity];
+        position = new int[capacity];
+        degree = new int[capacity];
+        Arrays.fill(position, -1);
+        for (int v = 0; v < degrees.length; v++) {
+            if (live[v]) {
+                maxDegree = Math.max(maxDegree, degrees[v]);
+            }
+        }
+        start = new int[maxDegree + 2];
+        int[] count = new int[maxDegree + 2];
+        for (int v = 0; v < degrees.length; v++) {
+            if (live[v]) {
+                count[degrees[v]]++;
+                size++;
+            }
+        }
+        int next = 0;
+        for (int d = maxDegree + 1; d >= 0; d--) {
+            start[d] = next;
+            next += count[d];
+        }
+        int[] fill = start.clone();
+        for (int v = 0; v < degrees.length; v++) {
+            if (live[v]) {
+                order[fill[degrees[v]]] = v;
+                position[v] = fill[degrees[v]]++;
+                degree[v] = degrees[v];
+            }
+        }
+    }
+
+    /**
+     * Gets the number of ranked vertices.
+     *
+     * @return the vertex count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the degree of a ranked vertex.
+     *
+     * @param v the vertex
+     * @return the degree
+     */
+    public int degree(int v) {
+        return degree[v];
+    }
+
+    /**
+     * Gets the vertices with the highest degrees.
+     *
+     * @param k the largest number of vertices to return
+     * @return up to k vertices, highest degree first
+     */
+    public int[] top(int k) {
+        return Arrays.copyOf(order, Math.max(0, Math.min(k, size)));
+    }
+
+    /**
+     * Starts ranking a vertex with degree 0. Degree 0 is the last block, so the vertex goes at the end.
+     *
+     * @param v the vertex
+     */
+    public void add(int v) {
+        if (v >= position.length) {
+            int capacity = Math.max(v + 1, position.length + (position.length >> 1));
+            int old = position.length;
+            position = Arrays.copyOf(position, capacity);
+            degree = Arrays.copyOf(degree, capacity);
+            Arrays.fill(position, old, capacity, -1);
+        }
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size + (size >> 1) + 1);
+        }
+        order[size] = v;
+        position[v] = size++;
+        degree[v] = 0;
+    }
+
+    /**
+     * Stops ranking a vertex, whose degree must have been lowered to 0 first.
+     *
+     * @param v the vertex
+     */
+    public void remove(int v) {
+        int last = order[--size];
+        order[position[v]] = last;
+        position[last] = position[v];
+        position[v] = -1;
+    }
+
+    /**
+     * Raises the degree of a vertex by one.
+     *
+     * @param v the vertex
+     */
+    public void increment(int v) {
+        int d = degree[v];
+        if (d + 1 > maxDegree) {
+            maxDegree = d + 1;
+            if (maxDegree + 1 >= start.length) {
+                int old = start.length;
+                start = Arrays.copyOf(start, Math.max(maxDegree + 2, old * 2));
+                // Blocks above the old maximum are empty and sit at the front of the order.
+                Arrays.fill(start, old, start.length, 0);
+            }
+        }
+        int first = start[d];
+        swap(position[v], first);
+        start[d]++;
+        degree[v] = d + 1;
+    }
+
+    /**
+     * Lowers the degree of a vertex by one.
+     *
+     * @param v the vertex
+     */
+    public void decrement(int v) {
+        int d = degree[v];
+        int last = start[d - 1] - 1;
+        swap(position[v], last);
+        start[d - 1]--;
+        degree[v] = d - 1;
+    }
+
+    /**
+     * Swaps two entries of the order.
+     */
+    private void swap(int i, int j) {
+        int a = order[i];
+        int b = order[j];
+        order[i] = b;
+        order[j] = a;
+        position[a] = j;
+        position[b] = i;
+    }
+}
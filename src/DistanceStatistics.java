@@ -0,0 +1,214 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Degrees-of-separation statistics computed from many sources at once.
+ * Sources are processed 64 at a time with a bit-parallel breadth-first search: every vertex carries a
+ * long whose bit i says whether source i has reached it, so one sweep over the connections advances all
+ * 64 searches by a level. Batches of sources run in parallel on the common fork/join pool.
+ * No paths or names are ever built; only distance counts are kept.
+ */
+public class DistanceStatistics {
+    private final int[] sources;        // Source vertices, in the order given.
+    private final int[] eccentricity;   // Largest finite distance from each source.
+    private final long[] histogram;     // Number of (source, target) pairs at each distance.
+    private final long unreachable;     // Number of (source, target) pairs with no path.
+
+    /**
+     * Computes the statistics for the given sources.
+     *
+     * @param adjacency   the adjacency store to search
+     * @param vertices    the vertices that count as targets, in any order
+     * @param sources     the source vertices, each of which must also be a target vertex
+     */
+    public DistanceStatistics(SparseAdjacency adjacency, int[] vertices, int[] sources) {
+        this.sources = sources.clone();
+        this.eccentricity = new int[sources.length];
+        int capacity = adjacency.capacity();
+        boolean[] isTarget = new boolean[capacity];
+        for (int v : vertices) {
+            isTarget[v] = true;
+        }
+
+        int batches = (sources.length + 63) / 64;
+        long[] total = IntStream.range(0, batches).parallel()
+                .mapToObj(b -> runBatch(adjacency, isTarget, b))
+                .reduce(new long[0], DistanceStatistics::merge);
+        histogram = total;
+
+        long reached = 0;
+        for (long count : histogram) {
+            reached += count;
+        }
+        unreachable = (long) sources.length * vertices.length - reached;
+    }
+
+    /**
+     * Runs one bit-parallel breadth-first search for up to 64 consecutive sources.
+     *
+     * @param adjacency the adjacency store to search
+     * @param isTarget  which vertices count as targets
+     * @param batch     the batch number
+     * @return the number of pairs reached at each distance, indexed by distance
+     */
+    private long[] runBatch(SparseAdjacency adjacency, boolean[] isTarget, int batch) {
+        int capacity = adjacency.capacity();
+        long[] visited = new long[capacity];
+        long[] frontier = new long[capacity];
+        long[] next = new long[capacity];
+        int first = batch * 64;
+        int width = Math.min(64, sources.length - first);
+        for (int i = 0; i < width; i++) {
+            int s = sources[first + i];
+            visited[s] |= 1L << i;
+            frontier[s] |= 1L << i;
+        }
+
+        long[] counts = new long[16];
+        counts[0] = width;
+        boolean active = true;
+        for (int level = 1; active; level++) {
+            for (int u = 0; u < capacity; u++) {
+                long bits = frontier[u];
+                if (bits == 0) {
+                    continue;
+                }
+                int[] neighbors = adjacency.outNeighbors(u);
+                int degree = adjacency.outDegree(u);
+                for (int k = 0; k < degree; k++) {
+                    next[neighbors[k]] |= bits;
+                }
+            }
+            active = false;
+            long reachedThisLevel = 0;
+            long levelCount = 0;
+            for (int v = 0; v < capacity; v++) {
+                long fresh = next[v] & ~visited[v];
+                next[v] = 0;
+                frontier[v] = fresh;
+                if (fresh != 0 && isTarget[v]) {
+                    visited[v] |= fresh;
+                    reachedThisLevel |= fresh;
+                    levelCount += Long.bitCount(fresh);
+                    active = true;
+                } else {
+                    frontier[v] = 0;
+                }
+            }
+            if (!active) {
+                break;
+            }
+            if (level >= counts.length) {
+                counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+            counts[level] = levelCount;
+            while (reachedThisLevel != 0) {
+                int i = Long.numberOfTrailingZeros(reachedThisLevel);
+                eccentricity[first + i] = level;
+                reachedThisLevel &= reachedThisLevel - 1;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Adds two distance histograms.
+     */
+    private static long[] merge(long[] a, long[] b) {
+        long[] sum = new long[Math.max(a.length, b.length)];
+        for (int i = 0; i < a.length; i++) {
+            sum[i] += a[i];
+        }
+        for (int i = 0; i < b.length; i++) {
+            sum[i] += b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Gets the source vertices the statistics were computed from.
+     *
+     * @return the source vertices
+     */
+    public int[] getSources() {
+        return sources.clone();
+    }
+
+    /**
+     * Gets the number of (source, target) pairs at a given distance. Distance 0 counts each source itself.
+     *
+     * @param distance the number of connections between source and target
+     * @return the number of pairs at that distance
+     */
+    public long pairsAtDistance(int distance) {
+        return distance < histogram.length ? histogram[distance] : 0;
+    }
+
+    /**
+     * Gets the largest distance at which any pair was found.
+     *
+     * @return the largest finite distance
+     */
+    public int maxDistance() {
+        int max = 0;
+        for (int d = 0; d < histogram.length; d++) {
+            if (histogram[d] > 0) {
+                max = d;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gets the number of (source, target) pairs where the target cannot be reached.
+     *
+     * @return the number of unreachable pairs
+     */
+    public long unreachablePairs() {
+        return unreachable;
+    }
+
+    /**
+     * Gets the eccentricity of a source, the largest distance from it to any user it can reach.
+     *
+     * @param i the position of the source in getSources()
+     * @return the eccentricity of the source
+     */
+    public int eccentricity(int i) {
+        return eccentricity[i];
+    }
+
+    /**
+     * Gets the largest eccentricity over the sources. This is the diameter when every user was a source
+     * and a lower bound for it otherwise.
+     *
+     * @return the approximate diameter
+     */
+    public int approximateDiameter() {
+        int max = 0;
+        for (int e : eccentricity) {
+            max = Math.max(max, e);
+        }
+        return max;
+    }
+
+    /**
+     * Gets the average distance over all reachable pairs of distinct users.
+     *
+     * @return the average degrees of separation, or 0 if no such pair exists
+     */
+    public double averageDistance() {
+        long pairs = 0;
+        long sum = 0;
+        for (int d = 1; d < histogram.length; d++) {
+            pairs += histogram[d];
+            sum += histogram[d] * d;
+        }
+        return pairs == 0 ? 0 : (double) sum / pairs;
+    }
+}
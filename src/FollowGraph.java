@@ -2,6 +2,9 @@ import java.awt.*;
 import java.io.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
 
 /**
  * @author Justin Chong
@@ -16,415 +19,1549 @@ public class FollowGraph implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /**
-     * List of all users in the graph
+     * List of all users in the graph, indexed by index position. Slots of removed users hold null
      */
     private ArrayList<User> users;
 
     /**
-     * Maximum number of users allowed in the graph
+     * Number of slots left empty by removed users, which stay empty until the next compaction
      */
-    public static final int MAX_USERS = 100;
+    private int freeCount;
 
     /**
-     * Adjacency matrix to store connections between users
+     * Largest number of user slots for which the dense bitset mirror is kept, about 64 MB of bitsets
      */
-    private boolean[][] connections;
+    public static final int DENSE_MODE_LIMIT = BitsetAdjacency.MAX_VERTICES;
+
+    /**
+     * Dense mode turns itself on once at least one in this many ordered pairs of users is connected,
+     * the density at which the bitsets take no more memory than the sparse lists
+     */
+    public static final int DENSE_MODE_RATIO = 32;
+
+    /**
+     * Number of path query results kept by default
+     */
+    public static final int DEFAULT_PATH_CACHE_SIZE = 1024;
+
+    /**
+     * Minimum number of slots before removed users trigger a compaction
+     */
+    private static final int COMPACT_THRESHOLD = 64;
+
+    /**
+     * File the graph is saved to and loaded from
+     */
+    public static final String SNAPSHOT_FILE = "FollowGraph.fgs";
+
+    /**
+     * File written by older versions using Java serialization, still read for migration
+     */
+    public static final String LEGACY_FILE = "FollowGraph.obj";
+
+    /**
+     * Write-ahead log of the mutations made since the snapshot was last written
+     */
+    public static final String LOG_FILE = "FollowGraph.log";
+
+    /**
+     * Number of logged mutations after which a checkpoint is written and the log is truncated
+     */
+    public static final long CHECKPOINT_INTERVAL = 1_000_000;
+
+    /**
+     * Sparse adjacency store holding the follow connections between users
+     */
+    private SparseAdjacency connections;
+
+    /**
+     * Hash index from username to the user's index position.
+     * A concurrent map so lookups stay safe while another thread adds or removes users
+     */
+    private ConcurrentHashMap<String, Integer> nameIndex;
+
+    /**
+     * Index position of the user with each ID, or -1 for the IDs of removed users.
+     * IDs are never reused, so a stale ID can never name a different user. The price is that the table
+     * keeps one int for every user ever added, removed or not, and never shrinks: a graph that has seen
+     * ten million additions holds 40 MB here however few users remain. Saving and reloading does not
+     * reset it either, since IDs are kept across snapshots
+     */
+    private int[] idIndex;
+
+    /**
+     * ID given to the next user added
+     */
+    private int nextId;
+
+    /**
+     * Reusable scratch space for shortest path searches, one per thread
+     */
+    private static final ThreadLocal<ShortestPathEngine> PATH_ENGINES = ThreadLocal.withInitial(ShortestPathEngine::new);
+
+    /**
+     * Reusable scratch space for recommendations, one per thread
+     */
+    private static final ThreadLocal<Recommender> RECOMMENDERS = ThreadLocal.withInitial(Recommender::new);
+
+    /**
+     * Write-ahead log receiving every mutation before it is applied, or null if mutations are not logged
+     */
+    private transient MutationLog log;
+
+    /**
+     * File checkpoints are written to, next to the attached log
+     */
+    private transient String snapshotFile = SNAPSHOT_FILE;
+
+    /**
+     * Sequence number of the first log record not contained in the snapshot file, 0 if none has been read
+     */
+    private transient long logSequence;
+
+    /**
+     * Number of mutations applied since the graph was created or loaded.
+     * Cached indexes remember the version they were built at and are ignored once it moves on
+     */
+    private transient volatile long version;
+
+    /**
+     * Strongly connected components, condensation and reachability index as of some version,
+     * or null if not built yet
+     */
+    private transient volatile ComponentCache componentCache;
+
+    /**
+     * PageRank and HITS scores as of some version, or null if not computed yet
+     */
+    private transient volatile Versioned<InfluenceRanks> influenceCache;
+
+    /**
+     * Users ordered by number of followers, kept up to date by every mutation once built, or null
+     */
+    private transient volatile Versioned<DegreeRanking> followerRanking;
+
+    /**
+     * Users ordered by number of users followed, kept up to date by every mutation once built, or null
+     */
+    private transient volatile Versioned<DegreeRanking> followingRanking;
+
+    /**
+     * Dense bitset mirror of the connections, kept in step with them while dense mode is on, or null
+     */
+    private transient volatile BitsetAdjacency dense;
+
+    /**
+     * Whether dense mode was turned off by hand and must not turn itself back on
+     */
+    private transient boolean denseModeDisabled;
+
+    /**
+     * Recent shortestPath and allPaths results, or null if not created yet
+     */
+    private transient volatile PathQueryCache pathCache;
+
+    /**
+     * Whether path results are computed afresh every time instead of being cached
+     */
+    private transient boolean pathCacheDisabled;
 
     /**
      * Constructs a new FollowGraph object.
      */
     public FollowGraph() {
         users = new ArrayList<>();
-        connections = new boolean[MAX_USERS][MAX_USERS];
+        connections = new SparseAdjacency();
+        nameIndex = new ConcurrentHashMap<>();
+        idIndex = new int[0];
+    }
+
+    /**
+     * Constructs a FollowGraph from the contents of a snapshot.
+     *
+     * @param snapshot the snapshot holding the users and their connections
+     */
+    private FollowGraph(GraphSnapshot snapshot) {
+        List<String> names = snapshot.getNames();
+        users = new ArrayList<>(names.size());
+        connections = snapshot.getAdjacency();
+        nameIndex = new ConcurrentHashMap<>(names.size() * 2);
+        int[] ids = snapshot.getIds();
+        nextId = snapshot.getNextId();
+        logSequence = snapshot.getLogSequence();
+        idIndex = new int[nextId];
+        Arrays.fill(idIndex, -1);
+        for (String name : names) {
+            User u = new User(name, ids[users.size()], users.size());
+            users.add(u);
+            nameIndex.put(name, u.getIndexPos());
+            idIndex[u.getId()] = u.getIndexPos();
+        }
+        checkDenseMode();
+    }
+
+    /**
+     * Adds a new user to the graph if the user does not already exist.
+     *
+     * @param userName the name of the user to be added
+     * @return true if the user was added, false if the name is null or already taken
+     */
+    public boolean addUser(String userName) {
+        long start = GraphMetrics.start();
+        try {
+            if (userName == null || nameIndex.containsKey(userName)) {
+                return false;
+            }
+            logMutation(MutationLog.ADD_USER, userName, null);
+            createUser(userName);
+            checkpointIfDue();
+            return true;
+        } finally {
+            GraphMetrics.record(GraphMetrics.Op.ADD_USER, start);
+        }
+    }
+
+    /**
+     * Adds many users at once, skipping names that already exist.
+     * Storage is sized once for the whole batch instead of growing per insert.
+     *
+     * @param userNames the names of the users to be added
+     * @return the number of users that were actually added
+     */
+    public int addUsers(Collection<String> userNames) {
+        long start = GraphMetrics.start();
+        try {
+            int added = 0;
+            users.ensureCapacity(users.size() + userNames.size());
+            connections.ensureCapacity(users.size() + userNames.size());
+            for (String userName : userNames) {
+                if (userName == null || nameIndex.containsKey(userName)) {
+                    continue;
+                }
+                logMutation(MutationLog.ADD_USER, userName, null);
+                createUser(userName);
+                checkpointIfDue();
+                added++;
+            }
+            return added;
+        } finally {
+            GraphMetrics.recordBatch(GraphMetrics.Op.ADD_USER, start, userNames.size());
+        }
+    }
+
+    /**
+     * Creates a user at the end of the user list. Slots left by removed users are not filled,
+     * so a new user always comes after every existing user in listings and path tie-breaking.
+     *
+     * @param userName the name of the new user
+     * @return the new User object
+     */
+    private User createUser(String userName) {
+        User u = newUser(userName, users.size());
+        users.add(u);
+        nameIndex.put(userName, u.getIndexPos());
+        connections.ensureCapacity(users.size());
+        if (dense != null) {
+            if (users.size() > DENSE_MODE_LIMIT) {
+                dense = null;
+            } else {
+                dense.ensureCapacity(users.size());
+            }
+        }
+        rankUser(u.getIndexPos(), true);
+        mutated(null);
+        return u;
+    }
+
+    /**
+     * Creates a user with the next unused ID.
+     *
+     * @param userName the name of the new user
+     * @param index    the index position of the new user
+     * @return the new User object
+     */
+    private User newUser(String userName, int index) {
+        if (nextId == idIndex.length) {
+            idIndex = Arrays.copyOf(idIndex, Math.max(16, nextId * 2));
+        }
+        idIndex[nextId] = index;
+        return new User(userName, nextId++, index);
+    }
+
+    /**
+     * Adds a connection from one user to another.
+     *
+     * @param userFrom the username initiating the connection
+     * @param userTo   the username receiving the connection
+     * @return true if a new connection was added, false if it already existed or a user does not exist
+     */
+    public boolean addConnections(String userFrom, String userTo) {
+        long start = GraphMetrics.start();
+        try {
+            return connect(findUser(userFrom), findUser(userTo));
+        } finally {
+            GraphMetrics.record(GraphMetrics.Op.ADD_CONNECTION, start);
+        }
+    }
+
+    /**
+     * Adds a connection from one user to another, naming the users by ID.
+     *
+     * @param fromId the ID of the user initiating the connection
+     * @param toId   the ID of the user receiving the connection
+     * @return true if a new connection was added, false if it already existed or a user does not exist
+     */
+    public boolean addConnectionById(int fromId, int toId) {
+        long start = GraphMetrics.start();
+        try {
+            return connect(getUserById(fromId), getUserById(toId));
+        } finally {
+            GraphMetrics.record(GraphMetrics.Op.ADD_CONNECTION, start);
+        }
+    }
+
+    /**
+     * Adds a connection between two users found by either kind of lookup.
+     *
+     * @param from the user initiating the connection, or null if not found
+     * @param to   the user receiving the connection, or null if not found
+     * @return true if a new connection was added
+     */
+    private boolean connect(User from, User to) {
+        if ((from == null) || (to == null)) {
+            return false;
+        }
+        // Read before touching the connections, so a cache built meanwhile by a reader that saw them
+        // half-updated is never carried forward.
+        ComponentCache cache = currentComponentCache();
+        if (connections.hasEdge(from.getIndexPos(), to.getIndexPos())) {
+            return false;
+        }
+        logMutation(MutationLog.ADD_CONNECTION, from.getUserName(), to.getUserName());
+        connections.addEdge(from.getIndexPos(), to.getIndexPos());
+        if (dense != null) {
+            dense.addEdge(from.getIndexPos(), to.getIndexPos());
+        }
+        rankEdge(from.getIndexPos(), to.getIndexPos(), true);
+        // An edge into a lower-numbered component cannot close a cycle, so only the condensation
+        // may change; an edge inside a component changes nothing.
+        if (cache != null) {
+            int c1 = cache.components.componentOf(from.getIndexPos());
+            int c2 = cache.components.componentOf(to.getIndexPos());
+            cache = c1 == c2 ? cache : c1 > c2 ? cache.withoutCondensation() : null;
+        }
+        mutated(cache);
+        checkpointIfDue();
+        return true;
+    }
+
+    /**
+     * Removes a user and all their connections from the graph.
+     * The user's slot is left empty rather than closed up, so the cost is proportional to the
+     * user's connections. Once more than half the slots are empty the graph is compacted.
+     *
+     * @param user the username to be removed
+     */
+    public void removeUser(String user) {
+        long start = GraphMetrics.start();
+        try {
+            delete(findUser(user));
+        } finally {
+            GraphMetrics.record(GraphMetrics.Op.REMOVE_USER, start);
+        }
+    }
+
+    /**
+     * Removes a user and all their connections from the graph, naming the user by ID.
+     *
+     * @param id the ID of the user to be removed
+     */
+    public void removeUserById(int id) {
+        long start = GraphMetrics.start();
+        try {
+            delete(getUserById(id));
+        } finally {
+            GraphMetrics.record(GraphMetrics.Op.REMOVE_USER, start);
+        }
+    }
+
+    /**
+     * Removes a user found by either kind of lookup.
+     *
+     * @param u the user to be removed, or null if not found
+     */
+    private void delete(User u) {
+        if (u != null) {
+            logMutation(MutationLog.REMOVE_USER, u.getUserName(), null);
+            int idx = u.getIndexPos();
+            int[] following = connections.outNeighbors(idx);
+            for (int k = 0; k < connections.outDegree(idx); k++) {
+                rankEdge(idx, following[k], false);
+            }
+            int[] followers = connections.inNeighbors(idx);
+            for (int k = 0; k < connections.inDegree(idx); k++) {
+                if (followers[k] != idx) {
+                    rankEdge(followers[k], idx, false);
+                }
+            }
+            rankUser(idx, false);
+            if (dense != null) {
+                dense.clearVertex(idx);
+            }
+            connections.clearVertex(idx);
+            users.set(idx, null);
+            nameIndex.remove(u.getUserName());
+            idIndex[u.getId()] = -1;
+            freeCount++;
+            mutated(null);
+            if (users.size() >= COMPACT_THRESHOLD && freeCount * 2 > users.size()) {
+                compact();
+            }
+            checkpointIfDue();
+        }
+    }
+
+    /**
+     * Renumbers the remaining users so their index positions are contiguous again,
+     * dropping the slots left behind by removed users. Relative order is preserved.
+     */
+    public void compact() {
+        if (freeCount == 0) {
+            return;
+        }
+        int oldCount = users.size();
+        int[] mapping = new int[oldCount];
+        ArrayList<User> remaining = new ArrayList<>(oldCount - freeCount);
+        for (int i = 0; i < oldCount; i++) {
+            User u = users.get(i);
+            if (u == null) {
+                mapping[i] = -1;
+                continue;
+            }
+            mapping[i] = remaining.size();
+            u.setIndexPos(remaining.size());
+            nameIndex.put(u.getUserName(), remaining.size());
+            idIndex[u.getId()] = remaining.size();
+            remaining.add(u);
+        }
+        connections.compact(mapping, oldCount, remaining.size());
+        users = remaining;
+        freeCount = 0;
+        if (dense != null) {
+            dense = BitsetAdjacency.fromSparse(connections, users.size());
+        }
+        followerRanking = null;
+        followingRanking = null;
+        mutated(null);
+    }
+
+    /**
+     * Removes a connection between two users.
+     *
+     * @param userFrom the username initiating the connection
+     * @param userTo   the username receiving the connection
+     * @return true if the connection was removed, false if it did not exist
+     */
+    public boolean removeConnection(String userFrom, String userTo) {
+        long start = GraphMetrics.start();
+        try {
+            return disconnect(findUser(userFrom), findUser(userTo));
+        } finally {
+            GraphMetrics.record(GraphMetrics.Op.REMOVE_CONNECTION, start);
+        }
+    }
+
+    /**
+     * Removes a connection between two users, naming the users by ID.
+     *
+     * @param fromId the ID of the user initiating the connection
+     * @param toId   the ID of the user receiving the connection
+     * @return true if the connection was removed, false if it did not exist
+     */
+    public boolean removeConnectionById(int fromId, int toId) {
+        long start = GraphMetrics.start();
+        try {
+            return disconnect(getUserById(fromId), getUserById(toId));
+        } finally {
+            GraphMetrics.record(GraphMetrics.Op.REMOVE_CONNECTION, start);
+        }
+    }
+
+    /**
+     * Removes a connection between two users found by either kind of lookup.
+     *
+     * @param from the user initiating the connection, or null if not found
+     * @param to   the user receiving the connection, or null if not found
+     * @return true if the connection was removed
+     */
+    private boolean disconnect(User from, User to) {
+        if ((from == null) || (to == null)) {
+            return false;
+        }
+        // Read before touching the connections, as in connect.
+        ComponentCache cache = currentComponentCache();
+        if (!connections.hasEdge(from.getIndexPos(), to.getIndexPos())) {
+            return false;
+        }
+        logMutation(MutationLog.REMOVE_CONNECTION, from.getUserName(), to.getUserName());
+        connections.removeEdge(from.getIndexPos(), to.getIndexPos());
+        if (dense != null) {
+            dense.removeEdge(from.getIndexPos(), to.getIndexPos());
+        }
+        rankEdge(from.getIndexPos(), to.getIndexPos(), false);
+        // Removing an edge between components cannot split one, so only the condensation may change.
+        if (cache != null && cache.components.componentOf(from.getIndexPos())
+                == cache.components.componentOf(to.getIndexPos())) {
+            cache = null;
+        }
+        mutated(cache == null ? null : cache.withoutCondensation());
+        checkpointIfDue();
+        return true;
+    }
+
+    /**
+     * Finds and returns a user object by their username.
+     *
+     * @param userName the name of the user to search for
+     * @return the User object if found, otherwise null
+     */
+    public User getUserByName(String userName) {
+        long start = GraphMetrics.start();
+        User user = findUser(userName);
+        GraphMetrics.record(GraphMetrics.Op.GET_USER, start);
+        return user;
+    }
+
+    /**
+     * Looks up a user by name without recording metrics, for lookups made inside other operations.
+     *
+     * @param userName the name of the user to search for
+     * @return the User object if found, otherwise null
+     */
+    private User findUser(String userName) {
+        Integer index = userName == null ? null : nameIndex.get(userName);
+        return index == null ? null : users.get(index);
+    }
+
+    /**
+     * Finds the index position of a user by their username.
+     *
+     * @param userName the name of the user to search for
+     * @return the index position of the user, or -1 if the user does not exist
+     */
+    public int indexOf(String userName) {
+        Integer index = userName == null ? null : nameIndex.get(userName);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Finds the ID of a user by their username. Callers making many calls for the same users can look
+     * the IDs up once and use the methods taking IDs, which skip hashing the names. IDs are never
+     * reused, so the graph keeps four bytes for every user ever added, including removed ones.
+     *
+     * @param userName the name of the user to search for
+     * @return the ID of the user, or -1 if the user does not exist
+     */
+    public int idOf(String userName) {
+        User user = findUser(userName);
+        return user == null ? -1 : user.getId();
+    }
+
+    /**
+     * Finds a user by their ID.
+     *
+     * @param id the ID of the user
+     * @return the User object if found, otherwise null
+     */
+    public User getUserById(int id) {
+        int index = id >= 0 && id < nextId ? idIndex[id] : -1;
+        return index < 0 ? null : users.get(index);
+    }
+
+    /**
+     * Gets the number of followers of a user named by ID.
+     *
+     * @param id the ID of the user
+     * @return the number of followers, or 0 if the user does not exist
+     */
+    public int getFollowerCountById(int id) {
+        User user = getUserById(id);
+        return user == null ? 0 : countFollowers(user.getIndexPos());
+    }
+
+    /**
+     * Gets the number of users a user named by ID is following.
+     *
+     * @param id the ID of the user
+     * @return the number of users followed, or 0 if the user does not exist
+     */
+    public int getFollowingCountById(int id) {
+        User user = getUserById(id);
+        return user == null ? 0 : countFollowing(user.getIndexPos());
+    }
+
+    /**
+     * Gets the IDs of all followers of a user named by ID.
+     *
+     * @param id the ID of the user
+     * @return the follower IDs in index order, or an empty array if the user does not exist
+     */
+    public int[] getFollowerIds(int id) {
+        User user = getUserById(id);
+        if (user == null) {
+            return new int[0];
+        }
+        return idsOf(connections.inNeighbors(user.getIndexPos()), connections.inDegree(user.getIndexPos()));
+    }
+
+    /**
+     * Gets the IDs of all users a user named by ID is following.
+     *
+     * @param id the ID of the user
+     * @return the IDs of the users followed in index order, or an empty array if the user does not exist
+     */
+    public int[] getFollowingIds(int id) {
+        User user = getUserById(id);
+        if (user == null) {
+            return new int[0];
+        }
+        return idsOf(connections.outNeighbors(user.getIndexPos()), connections.outDegree(user.getIndexPos()));
+    }
+
+    /**
+     * Maps index positions to user IDs.
+     *
+     * @param indices the index positions
+     * @param count   the number of index positions to map
+     * @return the IDs of the users at those positions
+     */
+    private int[] idsOf(int[] indices, int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = users.get(indices[i]).getId();
+        }
+        return ids;
+    }
+
+    /**
+     * Adds a batch of connections given by index position, for bulk loading.
+     * Much faster than calling addConnections once per connection on large batches.
+     * Connections naming an index position that holds no user are skipped, as addConnections skips
+     * users that do not exist. When a write-ahead log is attached the batch is made durable with a
+     * checkpoint instead of one log record per connection; the checkpoint compacts the graph, so index
+     * positions may change afterwards. A checkpoint that fails is reported and the batch stays applied.
+     *
+     * @param from  the index position of the user initiating each connection
+     * @param to    the index position of the user receiving each connection
+     * @param count the number of connections in the batch
+     * @return the number of connections that were new
+     */
+    public long addConnections(int[] from, int[] to, int count) {
+        long start = GraphMetrics.start();
+        int requested = count;
+        try {
+            int valid = 0;
+            for (int i = 0; i < count; i++) {
+                if (isLive(from[i]) && isLive(to[i])) {
+                    valid++;
+                }
+            }
+            if (valid < count) {
+                int[] keptFrom = new int[valid];
+                int[] keptTo = new int[valid];
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    if (isLive(from[i]) && isLive(to[i])) {
+                        keptFrom[kept] = from[i];
+                        keptTo[kept++] = to[i];
+                    }
+                }
+                from = keptFrom;
+                to = keptTo;
+                count = valid;
+            }
+
+            long added = connections.addEdges(from, to, count);
+            if (added > 0) {
+                if (dense != null) {
+                    for (int i = 0; i < count; i++) {
+                        dense.addEdge(from[i], to[i]);
+                    }
+                }
+                followerRanking = null;
+                followingRanking = null;
+                mutated(null);
+            }
+            if (log != null && added > 0) {
+                try {
+                    checkpoint();
+                } catch (IOException e) {
+                    System.err.println("Error writing the checkpoint: " + e.getMessage());
+                }
+            }
+            return added;
+        } finally {
+            GraphMetrics.recordBatch(GraphMetrics.Op.ADD_CONNECTION, start, requested);
+        }
+    }
+
+    /**
+     * Checks whether an index position holds a user.
+     *
+     * @param index the index position
+     * @return true if the position is in range and not a free slot
+     */
+    private boolean isLive(int index) {
+        return index >= 0 && index < users.size() && users.get(index) != null;
+    }
+
+    /**
+     * Turns on dense mode, keeping a bitset copy of the connections alongside the sparse lists so that
+     * intersection queries such as common followers run as word-wise ANDs. Worth it for small graphs
+     * and dense communities; the copy takes memory proportional to the square of the number of users.
+     * Dense mode turns itself on when a graph is loaded or changed and has at least one connection per
+     * DENSE_MODE_RATIO pairs of users, so calling this is only needed for sparser graphs. It is not saved
+     * with the graph and turns itself off if the graph outgrows DENSE_MODE_LIMIT.
+     *
+     * @return true if dense mode is on, false if the graph has too many users for it
+     */
+    public boolean enableDenseMode() {
+        denseModeDisabled = false;
+        if (users.size() > DENSE_MODE_LIMIT) {
+            return false;
+        }
+        if (dense == null) {
+            dense = BitsetAdjacency.fromSparse(connections, users.size());
+        }
+        return true;
+    }
+
+    /**
+     * Turns off dense mode and releases the bitset copy of the connections. Dense mode stays off until
+     * enableDenseMode is called, however dense the graph becomes.
+     */
+    public void disableDenseMode() {
+        denseModeDisabled = true;
+        dense = null;
+    }
+
+    /**
+     * Turns dense mode on if the graph has become dense enough and small enough for it.
+     * Only called by writers, since the bitset copy is built from the connections as they are.
+     */
+    private void checkDenseMode() {
+        long size = users.size();
+        if (dense == null && !denseModeDisabled && size <= DENSE_MODE_LIMIT && connections.edgeCount() > 0
+                && connections.edgeCount() * DENSE_MODE_RATIO >= size * size) {
+            dense = BitsetAdjacency.fromSparse(connections, (int) size);
+        }
+    }
+
+    /**
+     * Checks whether dense mode is on.
+     *
+     * @return true if a bitset copy of the connections is being kept
+     */
+    public boolean isDenseMode() {
+        return dense != null;
+    }
+
+    /**
+     * Finds the shortest path between two users in the graph.
+     *
+     * @param userFrom the starting user
+     * @param userTo   the target user
+     * @return a string representation of the shortest path, or a message if no path exists
+     */
+    public String shortestPath(String userFrom, String userTo) {
+        return shortestPath(userFrom, userTo, false);
+    }
+
+    /**
+     * Finds the shortest path between two users in the graph using a breadth-first search.
+     * The bidirectional mode also searches backwards from the target through its followers,
+     * which visits far fewer users on large graphs but may pick a different path of the same length.
+     *
+     * @param userFrom      the starting user
+     * @param userTo        the target user
+     * @param bidirectional whether to search from both ends at once
+     * @return a string representation of the shortest path, or a message if no path exists
+     */
+    public String shortestPath(String userFrom, String userTo, boolean bidirectional) {
+        long start = GraphMetrics.start();
+        try {
+            User from = findUser(userFrom);
+            User to = findUser(userTo);
+
+            if (from == null) {
+                return "The vertex " + userFrom + " does not exist.";
+            }
+            if (to == null) {
+                return "The vertex " + userTo + " does not exist.";
+            }
+
+            // Only use the components if they are already built: rebuilding them after a mutation costs
+            // a pass over the whole graph, far more than a search that stops after a few hops.
+            ComponentCache scc = currentComponentCache();
+            if (scc != null && !scc.components.mayReach(from.getIndexPos(), to.getIndexPos())) {
+                return "No path found.";
+            }
+
+            long current = version;
+            PathQueryCache cache = pathCache();
+            PathQueryCache.Query query = bidirectional
+                    ? PathQueryCache.Query.BIDIRECTIONAL_PATH : PathQueryCache.Query.SHORTEST_PATH;
+            int[] path = cache == null ? null : cache.getPath(query, from.getIndexPos(), to.getIndexPos(), current);
+            if (path == null) {
+                ShortestPathEngine pathEngine = PATH_ENGINES.get();
+                path = bidirectional
+                        ? pathEngine.searchBidirectional(connections, from.getIndexPos(), to.getIndexPos())
+                        : pathEngine.search(connections, from.getIndexPos(), to.getIndexPos());
+                GraphMetrics.recordVisited(GraphMetrics.Op.SHORTEST_PATH, pathEngine.lastVisited());
+                if (path == null) {
+                    path = PathQueryCache.NO_PATH;
+                }
+                if (cache != null) {
+                    cache.putPath(query, from.getIndexPos(), to.getIndexPos(), current, path);
+                }
+            }
+
+            if (path == PathQueryCache.NO_PATH) {
+                return "No path found.";
+            }
+            return buildPathString(path);
+        } finally {
+            GraphMetrics.record(GraphMetrics.Op.SHORTEST_PATH, start);
+        }
+    }
+
+    /**
+     * Builds a string representation of a path from an array of indices.
+     *
+     * @param path the indices of the users on the path
+     * @return the user names joined by arrows
+     */
+    private String buildPathString(int[] path) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < path.length; i++) {
+            if (i > 0) {
+                sb.append(" -> ");
+            }
+            sb.append(users.get(path[i]).getUserName());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Prints all users in the graph with their follower and following counts, sorted by a given comparator.
+     *
+     * @param comp the comparator to use for sorting users
+     */
+    public void printAllUsers(Comparator<User> comp) {
+        ArrayList<User> temp = new ArrayList<>(users.size() - freeCount);
+        for (User user : users) {
+            if (user != null) {
+                temp.add(user);
+            }
+        }
+        temp.sort(comp);
+        String header = "User Name              " + "Number of Followers     " + "Number of Following";
+        System.out.println(header);
+        for (User user : temp) {
+            String userName = user.getUserName();
+            int followersCount = countFollowers(user.getIndexPos());
+            int followingCount = countFollowing(user.getIndexPos());
+            System.out.println(userName + " ".repeat(30 - userName.length()) + followersCount + "                      " + followingCount);
+        }
+    }
+
+    /**
+     * Gets the usernames of all followers of a user.
+     *
+     * @param userName the username of the user
+     * @return the followers in index order, or an empty list if the user does not exist
+     */
+    public List<String> getFollowers(String userName) {
+        User user = findUser(userName);
+        if (user == null) {
+            return new ArrayList<>();
+        }
+        int index = user.getIndexPos();
+        return namesOf(connections.inNeighbors(index), connections.inDegree(index));
+    }
+
+    /**
+     * Gets the usernames of all users a user is following.
+     *
+     * @param userName the username of the user
+     * @return the users followed in index order, or an empty list if the user does not exist
+     */
+    public List<String> getFollowing(String userName) {
+        User user = findUser(userName);
+        if (user == null) {
+            return new ArrayList<>();
+        }
+        int index = user.getIndexPos();
+        return namesOf(connections.outNeighbors(index), connections.outDegree(index));
+    }
+
+    /**
+     * Gets the users who follow a user and are followed back by them, not counting the user themselves.
+     *
+     * @param userName the username of the user
+     * @return the mutual follows in index order, or an empty list if the user does not exist
+     */
+    public List<String> mutualFollows(String userName) {
+        int index = indexOf(userName);
+        if (index < 0) {
+            return new ArrayList<>();
+        }
+        BitsetAdjacency bits = dense;
+        int[] mutual = bits != null ? bits.mutual(index) : connections.mutual(index);
+        List<String> names = new ArrayList<>(mutual.length);
+        for (int v : mutual) {
+            if (v != index) {
+                names.add(users.get(v).getUserName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Gets the users who follow both of two users.
+     *
+     * @param userA the username of the first user
+     * @param userB the username of the second user
+     * @return the common followers in index order, or an empty list if either user does not exist
+     */
+    public List<String> commonFollowers(String userA, String userB) {
+        int a = indexOf(userA);
+        int b = indexOf(userB);
+        if (a < 0 || b < 0) {
+            return new ArrayList<>();
+        }
+        BitsetAdjacency bits = dense;
+        int[] common = bits != null ? bits.commonFollowers(a, b) : connections.commonIn(a, b);
+        return namesOf(common, common.length);
+    }
+
+    /**
+     * Gets the users followed by both of two users.
+     *
+     * @param userA the username of the first user
+     * @param userB the username of the second user
+     * @return the users both follow in index order, or an empty list if either user does not exist
+     */
+    public List<String> commonFollowing(String userA, String userB) {
+        int a = indexOf(userA);
+        int b = indexOf(userB);
+        if (a < 0 || b < 0) {
+            return new ArrayList<>();
+        }
+        BitsetAdjacency bits = dense;
+        int[] common = bits != null ? bits.commonFollowing(a, b) : connections.commonOut(a, b);
+        return namesOf(common, common.length);
+    }
+
+    /**
+     * Converts the first entries of an index list to usernames.
+     *
+     * @param indices the index positions of the users
+     * @param count   the number of valid entries
+     * @return the usernames in the same order
+     */
+    private List<String> namesOf(int[] indices, int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            names.add(users.get(indices[k]).getUserName());
+        }
+        return names;
+    }
+
+    /**
+     * Prints all the followers of the specified user.
+     *
+     * @param userName the username of the user whose followers are to be printed
+     */
+    public void printAllFollowers(String userName) {
+        User user = findUser(userName);
+        if (user == null) {
+            System.out.println("Invalid user.");
+            return;
+        }
+
+        System.out.println("Followers of " + userName + ":");
+        int[] followers = connections.inNeighbors(user.getIndexPos());
+        for (int k = 0; k < connections.inDegree(user.getIndexPos()); k++) {
+            System.out.println(users.get(followers[k]).getUserName());
+        }
+    }
+
+    /**
+     * Prints all the users followed by the specified user.
+     *
+     * @param userName the username of the user whose followings are to be printed
+     */
+    public void printAllFollowing(String userName) {
+        User user = findUser(userName);
+        if (user == null) {
+            System.out.println("Invalid user.");
+            return;
+        }
+
+        System.out.println("Following by " + userName + ":");
+        int[] following = connections.outNeighbors(user.getIndexPos());
+        for (int k = 0; k < connections.outDegree(user.getIndexPos()); k++) {
+            System.out.println(users.get(following[k]).getUserName());
+        }
+    }
+
+    /**
+     * Gets the number of followers of a user.
+     *
+     * @param userName the username of the user
+     * @return the number of followers, or 0 if the user does not exist
+     */
+    public int getFollowerCount(String userName) {
+        User user = findUser(userName);
+        return user == null ? 0 : countFollowers(user.getIndexPos());
+    }
+
+    /**
+     * Gets the number of users a user is following.
+     *
+     * @param userName the username of the user
+     * @return the number of users followed, or 0 if the user does not exist
+     */
+    public int getFollowingCount(String userName) {
+        User user = findUser(userName);
+        return user == null ? 0 : countFollowing(user.getIndexPos());
+    }
+
+    /**
+     * Counts the number of followers for a user by index.
+     * The count is the in-degree kept up to date by every edge insert and delete, so this is O(1).
+     *
+     * @param userIndex the index of the user
+     * @return the number of followers the user has
+     */
+    private int countFollowers(int userIndex) {
+        return connections.inDegree(userIndex);
+    }
+
+    /**
+     * Counts the number of users being followed by a user by index.
+     * The count is the out-degree kept up to date by every edge insert and delete, so this is O(1).
+     *
+     * @param userIndex the index of the user
+     * @return the number of users the user is following
+     */
+    private int countFollowing(int userIndex) {
+        return connections.outDegree(userIndex);
+    }
+
+    /**
+     * Finds all paths between two users.
+     *
+     * @param userFrom the username of the starting user
+     * @param userTo   the username of the target user
+     * @return a list of all paths from the starting user to the target user
+     */
+    public List<String> allPaths(String userFrom, String userTo) {
+        long start = GraphMetrics.start();
+        try {
+            User from = findUser(userFrom);
+            User to = findUser(userTo);
+
+            if (from == null) {
+                return Collections.singletonList("The vertex " + userFrom + " does not exist.");
+            }
+            if (to == null) {
+                return Collections.singletonList("The vertex " + userTo + " does not exist.");
+            }
+
+            // As in shortestPath, the components only rule pairs out when they are already built.
+            ComponentCache scc = currentComponentCache();
+            if (scc != null) {
+                int c1 = scc.components.componentOf(from.getIndexPos());
+                int c2 = scc.components.componentOf(to.getIndexPos());
+                if (c1 != c2 && (c1 < c2 || scc.condensation != null && !scc.condensation.reaches(c1, c2))) {
+                    return Collections.singletonList("No path exists between " + userFrom + " and " + userTo + ".");
+                }
+            }
+
+            long current = version;
+            PathQueryCache cache = pathCache();
+            int[][] cached = cache == null ? null : cache.getPaths(from.getIndexPos(), to.getIndexPos(), current);
+            List<String> allPaths = new ArrayList<>();
+            if (cached != null) {
+                for (int[] path : cached) {
+                    allPaths.add(buildPathString(path));
+                }
+            } else {
+                List<int[]> found = new ArrayList<>();
+                PathEnumerator paths = new PathEnumerator(connections, from.getIndexPos(), to.getIndexPos(),
+                        PathEnumerator.UNLIMITED, PathEnumerator.UNLIMITED, null);
+                while (paths.hasNext()) {
+                    found.add(paths.next());
+                }
+                GraphMetrics.recordVisited(GraphMetrics.Op.ALL_PATHS, paths.visited());
+
+                // Sort by the rendered names, keeping each path's indices alongside for the cache.
+                String[] rendered = new String[found.size()];
+                Integer[] order = new Integer[found.size()];
+                for (int i = 0; i < rendered.length; i++) {
+                    rendered[i] = buildPathString(found.get(i));
+                    order[i] = i;
+                }
+                Arrays.sort(order, Comparator.comparing(i -> rendered[i]));
+                int[][] sorted = new int[order.length][];
+                for (int i = 0; i < order.length; i++) {
+                    sorted[i] = found.get(order[i]);
+                    allPaths.add(rendered[order[i]]);
+                }
+                if (cache != null) {
+                    cache.putPaths(from.getIndexPos(), to.getIndexPos(), current, sorted);
+                }
+            }
+
+            if (allPaths.isEmpty()) {
+                return Collections.singletonList("No path exists between " + userFrom + " and " + userTo + ".");
+            }
+            return allPaths;
+        } finally {
+            GraphMetrics.record(GraphMetrics.Op.ALL_PATHS, start);
+        }
     }
 
     /**
-     * Adds a new user to the graph if the user does not already exist.
+     * Lazily enumerates the paths between two users as arrays of index positions.
+     * Paths are only searched for as the caller asks for them, so a caller that stops early never pays
+     * for the rest. Use renderPath to turn a path into names. The graph must not be modified while the
+     * enumerator is in use.
      *
-     * @param userName the name of the user to be added
-     * @throws IllegalStateException if the maximum number of users is reached
+     * @param userFrom   the username of the starting user
+     * @param userTo     the username of the target user
+     * @param maxLength  the largest number of connections on a returned path, or PathEnumerator.UNLIMITED
+     * @param maxResults the largest number of paths to return, or PathEnumerator.UNLIMITED
+     * @param cancelled  a hook checked during the search that ends the enumeration once it returns true,
+     *                   for example when a deadline has passed; may be null
+     * @return an enumerator over the paths, or null if either user does not exist
      */
-    public void addUser(String userName) {
-        User.setUserCount(users.size());
-        for (User user : users) {
-            if (user.getUserName().equals(userName)) {
-                return;
-            }
-        }
-        if (users.size() >= MAX_USERS) {
-            throw new IllegalStateException("Maximum number of users reached.");
+    public PathEnumerator pathIterator(String userFrom, String userTo, int maxLength, long maxResults,
+                                       BooleanSupplier cancelled) {
+        User from = findUser(userFrom);
+        User to = findUser(userTo);
+        if (from == null || to == null) {
+            return null;
         }
-        User u = new User(userName);
-        users.add(u);
+        return new PathEnumerator(connections, from.getIndexPos(), to.getIndexPos(), maxLength, maxResults, cancelled);
     }
 
     /**
-     * Adds a connection from one user to another.
+     * Builds a string representation of a path returned by pathIterator.
      *
-     * @param userFrom the username initiating the connection
-     * @param userTo   the username receiving the connection
+     * @param path the index positions of the users on the path
+     * @return the user names joined by arrows
      */
-    public void addConnections(String userFrom, String userTo) {
-        User from = getUserByName(userFrom);
-        User to = getUserByName(userTo);
-
-        if ((from != null) && (to != null)) {
-            connections[from.getIndexPos()][to.getIndexPos()] = true;
-        }
+    public String renderPath(int[] path) {
+        return buildPathString(path);
     }
 
     /**
-     * Removes a user and all their connections from the graph.
+     * Finds all loops in the graph. Each loop is listed once, starting and ending at the user in
+     * the loop with the lowest index position. Loops are ordered by the index positions of their
+     * users, compared one by one from the start.
      *
-     * @param user the username to be removed
+     * @return a list of all loops in the graph
      */
-    public void removeUser(String user) {
-        User u = getUserByName(user);
-        int idx = u.getIndexPos();
-        if (u != null) {
-            users.remove(u);
-            for (int i = idx; i < users.size(); i++) {
-                for (int j = 0; j < connections.length; j++) {
-                    connections[i][j] = connections[i + 1][j];
-                }
-            }
-            for (int j = idx; j < users.size(); j++) {
-                for (int i = 0; i < connections.length; i++) {
-                    connections[i][j] = connections[i][j + 1];
-                }
-            }
-            for (int i = 0; i < connections.length; i++) {
-                connections[users.size()][i] = false;
-                connections[i][users.size()] = false;
+    public List<String> findAllLoops() {
+        long start = GraphMetrics.start();
+        try {
+            List<int[]> found = new ArrayList<>();
+            CycleEnumerator cycles = loopIterator(1, CycleEnumerator.UNLIMITED);
+            while (cycles.hasNext()) {
+                found.add(cycles.next());
             }
-            for (int i = 0; i < users.size(); i++) {
-                users.get(i).setIndexPos(i);
+            GraphMetrics.recordVisited(GraphMetrics.Op.FIND_LOOPS, cycles.visited());
+            // The enumerator goes component by component; sorting restores a deterministic order.
+            found.sort(Arrays::compare);
+            List<String> loops = new ArrayList<>(found.size());
+            for (int[] loop : found) {
+                loops.add(buildPathString(loop));
             }
+            return loops;
+        } finally {
+            GraphMetrics.record(GraphMetrics.Op.FIND_LOOPS, start);
         }
     }
 
     /**
-     * Removes a connection between two users.
+     * Lazily enumerates the loops in the graph as arrays of index positions, with the first user
+     * repeated at the end. Use renderPath to turn a loop into names. The graph must not be modified
+     * while the enumerator is in use.
      *
-     * @param userFrom the username initiating the connection
-     * @param userTo   the username receiving the connection
+     * @param minLength the smallest number of connections in a returned loop
+     * @param maxLength the largest number of connections in a returned loop, or CycleEnumerator.UNLIMITED
+     * @return an enumerator over the loops
      */
-    public void removeConnection(String userFrom, String userTo) {
-        User from = getUserByName(userFrom);
-        User to = getUserByName(userTo);
-
-        if ((from != null) && (to != null)) {
-            connections[from.getIndexPos()][to.getIndexPos()] = false;
-        }
+    public CycleEnumerator loopIterator(int minLength, int maxLength) {
+        return new CycleEnumerator(connections, components(), minLength, maxLength);
     }
 
     /**
-     * Finds and returns a user object by their username.
+     * Gets the cache of path query results, creating it on first use.
      *
-     * @param userName the name of the user to search for
-     * @return the User object if found, otherwise null
+     * @return the cache, or null if path caching is turned off
      */
-    public User getUserByName(String userName) {
-        for (User user : users) {
-            if (user.getUserName().equals(userName)) {
-                return user;
-            }
+    public PathQueryCache pathCache() {
+        PathQueryCache cache = pathCache;
+        if (cache == null && !pathCacheDisabled) {
+            cache = new PathQueryCache(DEFAULT_PATH_CACHE_SIZE);
+            pathCache = cache;
         }
-        return null;
+        return cache;
     }
 
     /**
-     * Finds the shortest path between two users in the graph.
+     * Sets how many path query results are cached, dropping the current cache.
      *
-     * @param userFrom the starting user
-     * @param userTo   the target user
-     * @return a string representation of the shortest path, or a message if no path exists
+     * @param capacity the number of results to keep, or 0 to turn path caching off
      */
-    public String shortestPath(String userFrom, String userTo) {
-        User from = getUserByName(userFrom);
-        User to = getUserByName(userTo);
-
-        if (from == null) {
-            return "The vertex " + userFrom + " does not exist.";
-        }
-        if (to == null) {
-            return "The vertex " + userTo + " does not exist.";
-        }
+    public void setPathCacheCapacity(int capacity) {
+        pathCacheDisabled = capacity <= 0;
+        pathCache = capacity <= 0 ? null : new PathQueryCache(capacity);
+    }
 
-        List<String> shortestPath = new ArrayList<>();
-        List<String> currentPath = new ArrayList<>();
-        Set<Integer> visited = new HashSet<>();
+    /**
+     * Gets the number of mutations applied since the graph was created or loaded.
+     * Anything computed from the graph can be kept as long as this has not changed.
+     *
+     * @return the current version of the graph
+     */
+    public long version() {
+        return version;
+    }
 
-        dfs(from.getIndexPos(), to.getIndexPos(), visited, currentPath, shortestPath);
+    /**
+     * Gets the strongly connected components of the graph, computing them only if a mutation since
+     * the last call may have changed them.
+     *
+     * @return the strongly connected components, indexed by index position
+     */
+    public StronglyConnectedComponents components() {
+        return componentCache(false).components;
+    }
 
-        if (shortestPath.isEmpty()) {
-            return "No path found.";
-        }
-        return String.join(" -> ", shortestPath);
+    /**
+     * Gets the condensation of the graph into its strongly connected components, computing it only if
+     * a mutation since the last call may have changed it.
+     *
+     * @return the condensation DAG, numbered like components()
+     */
+    public CondensationDag condensation() {
+        return componentCache(true).condensation;
     }
 
     /**
-     * Prints all users in the graph with their follower and following counts, sorted by a given comparator.
+     * Gets the reachability index of the graph, rebuilding it only if a mutation since the last call
+     * may have changed the condensation. Connections added inside a strongly connected component
+     * leave the index as it is.
      *
-     * @param comp the comparator to use for sorting users
+     * @return the reachability index
      */
-    public void printAllUsers(Comparator<User> comp) {
-        ArrayList<User> temp = new ArrayList<>(users);
-        temp.sort(comp);
-        String header = "User Name              " + "Number of Followers     " + "Number of Following";
-        System.out.println(header);
-        for (User user : temp) {
-            String userName = user.getUserName();
-            int followersCount = countFollowers(user.getIndexPos());
-            int followingCount = countFollowing(user.getIndexPos());
-            System.out.println(userName + " ".repeat(30 - userName.length()) + followersCount + "                      " + followingCount);
+    public ReachabilityIndex reachabilityIndex() {
+        ComponentCache cache = componentCache(true);
+        if (cache.reachability == null) {
+            cache = new ComponentCache(cache.version, cache.components, cache.condensation,
+                    new ReachabilityIndex(cache.components, cache.condensation));
+            componentCache = cache;
         }
+        return cache.reachability;
     }
 
     /**
-     * Prints all the followers of the specified user.
+     * Checks whether one user can reach another by following connections, without searching for a path.
+     * A user always reaches themselves.
      *
-     * @param userName the username of the user whose followers are to be printed
+     * @param userFrom the username of the starting user
+     * @param userTo   the username of the target user
+     * @return true if there is a path from one user to the other, false if not or if a user does not exist
      */
-    public void printAllFollowers(String userName) {
-        User user = getUserByName(userName);
-        if (user == null) {
-            System.out.println("Invalid user.");
-            return;
-        }
+    public boolean canReach(String userFrom, String userTo) {
+        int from = indexOf(userFrom);
+        int to = indexOf(userTo);
+        return from >= 0 && to >= 0 && reachabilityIndex().canReach(from, to);
+    }
 
-        System.out.println("Followers of " + userName + ":");
-        for (int i = 0; i < users.size(); i++) {
-            if (connections[i][user.getIndexPos()]) {
-                System.out.println(users.get(i).getUserName());
+    /**
+     * Gets the PageRank and HITS scores of every user, recomputing them only if the graph has changed
+     * since they were last computed.
+     *
+     * @return the influence scores, indexed by index position
+     */
+    public InfluenceRanks influenceRanks() {
+        long current = version;
+        Versioned<InfluenceRanks> cache = influenceCache;
+        if (cache == null || cache.version != current) {
+            int size = users.size();
+            boolean[] live = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                live[i] = users.get(i) != null;
             }
+            cache = new Versioned<>(current, new InfluenceRanks(connections, size, live));
+            influenceCache = cache;
         }
+        return cache.value;
     }
 
     /**
-     * Prints all the users followed by the specified user.
+     * Gets the component cache for the current version, building whatever part of it is missing.
+     * The version is read before the graph, so a cache built while a writer was busy is stamped with an
+     * old version and discarded on its next use. Writers read the cache they carry forward before they
+     * change anything, so they never pick up a cache built from a half-applied change.
      *
-     * @param userName the username of the user whose followings are to be printed
+     * @param withCondensation whether the condensation is needed as well
+     * @return the up-to-date component cache
      */
-    public void printAllFollowing(String userName) {
-        User user = getUserByName(userName);
-        if (user == null) {
-            System.out.println("Invalid user.");
-            return;
+    private ComponentCache componentCache(boolean withCondensation) {
+        long current = version;
+        ComponentCache cache = componentCache;
+        ComponentCache built = cache;
+        if (cache == null || cache.version != current) {
+            built = new ComponentCache(current, new StronglyConnectedComponents(connections, users.size()),
+                    null, null);
         }
-
-        System.out.println("Following by " + userName + ":");
-        for (int i = 0; i < users.size(); i++) {
-            if (connections[user.getIndexPos()][i]) {
-                System.out.println(users.get(i).getUserName());
-            }
+        if (withCondensation && built.condensation == null) {
+            built = new ComponentCache(current, built.components,
+                    new CondensationDag(connections, built.components), null);
         }
+        if (built != cache) {
+            componentCache = built;
+        }
+        return built;
     }
 
     /**
-     * Counts the number of followers for a user by index.
+     * Gets the component cache if it matches the current version.
      *
-     * @param userIndex the index of the user
-     * @return the number of followers the user has
+     * @return the cache, or null if there is none or it is out of date
      */
-    private int countFollowers(int userIndex) {
-        int count = 0;
-        for (int i = 0; i < users.size(); i++) {
-            if (connections[i][userIndex]) {
-                count++;
-            }
-        }
-        return count;
+    private ComponentCache currentComponentCache() {
+        ComponentCache cache = componentCache;
+        return cache != null && cache.version == version ? cache : null;
     }
 
     /**
-     * Counts the number of users being followed by a user by index.
+     * Records that the graph has changed, advancing the version.
      *
-     * @param userIndex the index of the user
-     * @return the number of users the user is following
+     * @param kept the part of the component cache still valid after the change, or null to drop it
      */
-    private int countFollowing(int userIndex) {
-        int count = 0;
-        for (int i = 0; i < users.size(); i++) {
-            if (connections[userIndex][i]) {
-                count++;
-            }
-        }
-        return count;
+    private void mutated(ComponentCache kept) {
+        checkDenseMode();
+        long next = version + 1;
+        version = next;
+        componentCache = kept == null ? null
+                : new ComponentCache(next, kept.components, kept.condensation, kept.reachability);
+        followerRanking = retag(followerRanking, next);
+        followingRanking = retag(followingRanking, next);
+    }
+
+    /**
+     * Carries a degree ranking over to the next version. Every mutation updates the rankings before
+     * advancing the version, so a ranking that was current is still correct.
+     *
+     * @param ranking the ranking, or null
+     * @param next    the new version
+     * @return the ranking tagged with the new version, or null if it was already out of date
+     */
+    private static Versioned<DegreeRanking> retag(Versioned<DegreeRanking> ranking, long next) {
+        return ranking != null && ranking.version == next - 1 ? new Versioned<>(next, ranking.value) : null;
     }
 
     /**
-     * Performs a depth-first search to find the shortest path between two users.
+     * Gets a degree ranking if it matches the current version.
      *
-     * @param current      the index of the current user being explored
-     * @param target       the index of the target user
-     * @param visited      the set of visited nodes
-     * @param currentPath  the path being currently explored
-     * @param shortestPath the shortest path found so far
+     * @param ranking the ranking, or null
+     * @return the ranking, or null if there is none or it is out of date
      */
-    private void dfs(int current, int target, Set<Integer> visited, List<String> currentPath, List<String> shortestPath) {
-        visited.add(current);
-        currentPath.add(users.get(current).getUserName());
-        if (current == target) {
-            if (shortestPath.isEmpty() || currentPath.size() < shortestPath.size()) {
-                shortestPath.clear();
-                shortestPath.addAll(currentPath);
+    private DegreeRanking currentRanking(Versioned<DegreeRanking> ranking) {
+        return ranking != null && ranking.version == version ? ranking.value : null;
+    }
+
+    /**
+     * Updates the degree rankings for a connection about to be recorded as added or removed.
+     *
+     * @param from  the index position of the user initiating the connection
+     * @param to    the index position of the user receiving the connection
+     * @param added true if the connection was added, false if removed
+     */
+    private void rankEdge(int from, int to, boolean added) {
+        DegreeRanking byFollowers = currentRanking(followerRanking);
+        DegreeRanking byFollowing = currentRanking(followingRanking);
+        if (added) {
+            if (byFollowers != null) {
+                byFollowers.increment(to);
+            }
+            if (byFollowing != null) {
+                byFollowing.increment(from);
             }
         } else {
-            for (int i = 0; i < users.size(); i++) {
-                if (connections[current][i] && !visited.contains(i)) {
-                    dfs(i, target, visited, currentPath, shortestPath);
-                }
+            if (byFollowers != null) {
+                byFollowers.decrement(to);
+            }
+            if (byFollowing != null) {
+                byFollowing.decrement(from);
             }
         }
-
-        visited.remove(current);
-        currentPath.remove(currentPath.size() - 1);
     }
 
     /**
-     * Finds all paths between two users.
+     * Updates the degree rankings for a user about to be recorded as added or removed.
+     * A removed user's connections must already have been taken out with rankEdge.
      *
-     * @param userFrom the username of the starting user
-     * @param userTo   the username of the target user
-     * @return a list of all paths from the starting user to the target user
+     * @param index the index position of the user
+     * @param added true if the user was added, false if removed
      */
-    public List<String> allPaths(String userFrom, String userTo) {
-        User from = getUserByName(userFrom);
-        User to = getUserByName(userTo);
-
-        if (from == null) {
-            return Collections.singletonList("The vertex " + userFrom + " does not exist.");
+    private void rankUser(int index, boolean added) {
+        DegreeRanking byFollowers = currentRanking(followerRanking);
+        DegreeRanking byFollowing = currentRanking(followingRanking);
+        if (byFollowers != null) {
+            if (added) {
+                byFollowers.add(index);
+            } else {
+                byFollowers.remove(index);
+            }
         }
-        if (to == null) {
-            return Collections.singletonList("The vertex " + userTo + " does not exist.");
+        if (byFollowing != null) {
+            if (added) {
+                byFollowing.add(index);
+            } else {
+                byFollowing.remove(index);
+            }
         }
+    }
 
-        List<String> allPaths = new ArrayList<>();
-        List<String> currentPath = new ArrayList<>();
-
-        findAllPaths(from.getIndexPos(), to.getIndexPos(), new HashSet<>(), currentPath, allPaths);
-
-        if (allPaths.isEmpty()) {
-            return Collections.singletonList("No path exists between " + userFrom + " and " + userTo + ".");
+    /**
+     * Gets the users with the most followers. The ranking is built once and then kept up to date by
+     * every follow and unfollow, so later calls cost O(k).
+     *
+     * @param k the largest number of users to return
+     * @return the usernames, most followers first; users with equal counts are in no particular order
+     */
+    public List<String> topFollowed(int k) {
+        Versioned<DegreeRanking> ranking = followerRanking;
+        if (ranking == null || ranking.version != version) {
+            ranking = buildRanking(true);
+            followerRanking = ranking;
         }
-
-        Collections.sort(allPaths);
-        return allPaths;
+        int[] top = ranking.value.top(k);
+        return namesOf(top, top.length);
     }
 
     /**
-     * Finds all possible paths using depth-first search.
+     * Gets the users following the most users. The ranking is built once and then kept up to date by
+     * every follow and unfollow, so later calls cost O(k).
      *
-     * @param current     the index of the current user
-     * @param target      the index of the target user
-     * @param visited     the set of visited nodes
-     * @param currentPath the path being currently explored
-     * @param allPaths    the list of all paths found so far
+     * @param k the largest number of users to return
+     * @return the usernames, most users followed first; users with equal counts are in no particular order
      */
-    private void findAllPaths(int current, int target, Set<Integer> visited, List<String> currentPath, List<String> allPaths) {
-        visited.add(current);
-        currentPath.add(users.get(current).getUserName());
-
-        if (current == target) {
-            allPaths.add(String.join(" -> ", currentPath));
-        } else {
-            for (int neighbor = 0; neighbor < users.size(); neighbor++) {
-                if (connections[current][neighbor] && !visited.contains(neighbor)) {
-                    findAllPaths(neighbor, target, visited, currentPath, allPaths);
-                }
-            }
+    public List<String> topFollowing(int k) {
+        Versioned<DegreeRanking> ranking = followingRanking;
+        if (ranking == null || ranking.version != version) {
+            ranking = buildRanking(false);
+            followingRanking = ranking;
         }
-
-        visited.remove(current);
-        currentPath.remove(currentPath.size() - 1);
+        int[] top = ranking.value.top(k);
+        return namesOf(top, top.length);
     }
 
     /**
-     * Finds all loops in the graph.
+     * Builds a degree ranking from the current follower or following counts.
      *
-     * @return a list of all loops in the graph
+     * @param byFollowers true to rank by followers, false to rank by users followed
+     * @return the ranking, tagged with the version read before the counts
      */
-    public List<String> findAllLoops() {
-        List<String> loops = new ArrayList<>();
-        Set<String> uniqueLoops = new HashSet<>();
-
-        for (int i = 0; i < users.size(); i++) {
-            findLoopsDFS(i, i, new ArrayList<>(), loops, uniqueLoops);
+    private Versioned<DegreeRanking> buildRanking(boolean byFollowers) {
+        long current = version;
+        int size = users.size();
+        int[] degrees = new int[size];
+        boolean[] live = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            live[i] = users.get(i) != null;
+            degrees[i] = byFollowers ? countFollowers(i) : countFollowing(i);
         }
-
-        return loops;
+        return new Versioned<>(current, new DegreeRanking(degrees, live));
     }
 
     /**
-     * Helper method to perform depth-first search and find loops in the graph.
+     * Computes degrees-of-separation statistics from a random sample of users, or from every user.
+     * All sources are searched together with a bit-parallel breadth-first search, so no paths are built.
      *
-     * @param start       the starting index of the loop
-     * @param current     the current index being explored
-     * @param path        the current path being explored
-     * @param loops       the list of discovered loops
-     * @param uniqueLoops the set of unique normalized loops
+     * @param sampleSize the number of source users, or 0 to use every user
+     * @param seed       the seed used to choose the sample
+     * @return the distance statistics
      */
-    private void findLoopsDFS(int start, int current, List<Integer> path, List<String> loops, Set<String> uniqueLoops) {
-        path.add(current);
-        for (int neighbor = 0; neighbor < users.size(); neighbor++) {
-            if (connections[current][neighbor]) {
-                if (neighbor == start && path.size() > 1) {
-                    List<Integer> loopPath = new ArrayList<>(path);
-                    loopPath.add(start);
-                    String loop = buildLoopString(loopPath);
-                    String normalizedLoop = normalizeLoop(loop);
-
-                    if (!uniqueLoops.contains(normalizedLoop)) {
-                        loops.add(loop);
-                        uniqueLoops.add(normalizedLoop);
-                    }
-                } else if (!path.contains(neighbor) || neighbor == start) {
-                    findLoopsDFS(start, neighbor, path, loops, uniqueLoops);
-                }
+    public DistanceStatistics distanceStatistics(int sampleSize, long seed) {
+        int[] live = new int[users.size() - freeCount];
+        int n = 0;
+        for (int i = 0; i < users.size(); i++) {
+            if (users.get(i) != null) {
+                live[n++] = i;
+            }
+        }
+        int[] sources = live.clone();
+        if (sampleSize > 0 && sampleSize < sources.length) {
+            Random random = new Random(seed);
+            for (int i = 0; i < sampleSize; i++) {
+                int j = i + random.nextInt(sources.length - i);
+                int swap = sources[i];
+                sources[i] = sources[j];
+                sources[j] = swap;
             }
+            sources = Arrays.copyOf(sources, sampleSize);
         }
-        path.remove(path.size() - 1);
+        return new DistanceStatistics(connections, live, sources);
     }
 
     /**
-     * Builds a string representation of a loop from a list of indices.
+     * Recommends users for a user to follow among those two connections away.
      *
-     * @param path the list of indices representing the loop
-     * @return a string representation of the loop
+     * @param userName the username of the user
+     * @param metric   how candidates are scored
+     * @param k        the largest number of users to recommend
+     * @return the usernames of the recommended users, best first, or an empty list if the user does not
+     *         exist or k is 0 or less
      */
-    private String buildLoopString(List<Integer> path) {
-        List<String> nodeNames = new ArrayList<>();
-        for (int index : path) {
-            nodeNames.add(users.get(index).getUserName());
+    public List<String> recommend(String userName, Recommender.Metric metric, int k) {
+        int index = indexOf(userName);
+        if (index < 0) {
+            return new ArrayList<>();
         }
-        return String.join(" -> ", nodeNames);
+        int[] recommended = RECOMMENDERS.get().recommend(connections, index, metric, k);
+        return namesOf(recommended, recommended.length);
     }
 
     /**
-     * Normalizes a loop string to a canonical form for comparison.
+     * Recommends users to follow for every user at once, spreading the users over all cores.
      *
-     * @param loop the loop string to be normalized
-     * @return the normalized loop string
+     * @param metric how candidates are scored
+     * @param k      the largest number of users to recommend to each user
+     * @return the recommendations of each user, keyed by username in index order
      */
-    private String normalizeLoop(String loop) {
-        String[] parts = loop.split(" -> ");
-        int n = parts.length - 1;
-        int minIndex = 0;
-
-        for (int i = 1; i < n; i++) {
-            if (parts[i].compareTo(parts[minIndex]) < 0) {
-                minIndex = i;
+    public Map<String, List<String>> recommendAll(Recommender.Metric metric, int k) {
+        int size = users.size();
+        int[][] results = new int[size][];
+        IntStream.range(0, size).parallel()
+                .filter(i -> users.get(i) != null)
+                .forEach(i -> results[i] = RECOMMENDERS.get().recommend(connections, i, metric, k));
+        Map<String, List<String>> all = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            if (results[i] != null) {
+                all.put(users.get(i).getUserName(), namesOf(results[i], results[i].length));
             }
         }
-
-        List<String> normalized = new ArrayList<>();
-        for (int i = 0; i < n; i++) {
-            normalized.add(parts[(minIndex + i) % n]);
-        }
-        normalized.add(parts[minIndex]);
-
-        return String.join(" -> ", normalized);
+        return all;
     }
 
     /**
@@ -440,11 +1577,15 @@ public class FollowGraph implements Serializable {
             return;
         }
 
+        List<String> names = new ArrayList<>();
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String line;
             while ((line = reader.readLine()) != null) {
-                addUser(line);
-                System.out.println(line + " has been added.");
+                names.add(line);
+            }
+            addUsers(names);
+            for (String name : names) {
+                System.out.println(name + " has been added.");
             }
         } catch (IOException e) {
             System.out.println("Error reading the file: " + e.getMessage());
@@ -487,37 +1628,271 @@ public class FollowGraph implements Serializable {
     }
 
     /**
-     * Saves the current state of the graph to a file.
+     * Saves the current state of the graph to a binary snapshot file.
+     * Removed user slots are compacted away first so the snapshot is dense.
      */
     public void saveGraph() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("FollowGraph.obj"))) {
-            oos.writeObject(this);
-            System.out.println("FollowGraph object saved into file FollowGraph.obj.");
+        try {
+            checkpoint();
+            System.out.println("FollowGraph object saved into file " + snapshotFile + ".");
         } catch (IOException e) {
             System.err.println("Error saving the graph: " + e.getMessage());
         }
     }
 
     /**
-     * Loads a FollowGraph object from a file. If the file does not exist, a new graph is created.
+     * Writes a snapshot of the graph and then truncates the write-ahead log, whose records
+     * are all contained in the new snapshot. The snapshot records the log's next sequence number,
+     * so if the log is not truncated because of a crash, its records are skipped on the next replay.
+     *
+     * @throws IOException if the snapshot or the log cannot be written
+     */
+    public void checkpoint() throws IOException {
+        compact();
+        long sequence = log == null ? logSequence : log.nextSequence();
+        GraphSnapshot.write(new File(snapshotFile).toPath(), users, nextId, connections, sequence);
+        logSequence = sequence;
+        if (log != null) {
+            log.truncate(sequence);
+        }
+    }
+
+    /**
+     * Replays a write-ahead log into this graph and then attaches it, so that every later
+     * mutation is appended to it. Checkpoints are then written next to the log, to the same name
+     * with the .fgs extension instead of .log, so each log is paired with its own snapshot.
+     * If the graph was read from that snapshot, records the snapshot already contains are skipped.
+     *
+     * @param filename the name of the log file
+     * @throws IOException if the log cannot be opened or read
+     */
+    public void openLog(String filename) throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+        String paired = snapshotFileFor(filename);
+        long skipUntil = paired.equals(snapshotFile) ? logSequence : 0;
+        MutationLog opened = new MutationLog(new File(filename).toPath());
+        long replayed = opened.replay(this, skipUntil);
+        if (replayed > 0) {
+            System.out.println("Replayed " + replayed + " operations from " + filename + ".");
+        }
+        // Every record is in the snapshot, left behind by a crash before the log was truncated.
+        if (opened.nextSequence() < skipUntil || (opened.size() > 0 && opened.nextSequence() == skipUntil)) {
+            opened.truncate(skipUntil);
+        }
+        log = opened;
+        if (!paired.equals(snapshotFile)) {
+            snapshotFile = paired;
+            logSequence = 0;
+        }
+    }
+
+    /**
+     * Gets the snapshot file paired with a log file.
+     *
+     * @param logFile the name of the log file
+     * @return the log file's name with .fgs in place of .log, or with .fgs added if it has no .log
+     */
+    private static String snapshotFileFor(String logFile) {
+        return (logFile.endsWith(".log") ? logFile.substring(0, logFile.length() - 4) : logFile) + ".fgs";
+    }
+
+    /**
+     * Appends a mutation to the write-ahead log, if one is attached. Called before the mutation is
+     * applied, so a mutation that cannot be logged is not applied either.
+     *
+     * @param op     the operation code
+     * @param first  the user the operation applies to, or the source of a connection
+     * @param second the target of a connection, or null for user operations
+     */
+    private void logMutation(byte op, String first, String second) {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.append(op, first, second);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes a checkpoint once the log has grown past the checkpoint interval. Called after a logged
+     * mutation has been applied, so the checkpoint contains every record it truncates.
+     */
+    private void checkpointIfDue() {
+        if (log == null || log.size() < CHECKPOINT_INTERVAL) {
+            return;
+        }
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Loads a FollowGraph object from the snapshot file. If there is no snapshot but a file from the
+     * old serialized format exists, that file is read instead and will be replaced by a snapshot on the
+     * next save. If neither file exists, a new graph is created. Mutations recorded in the write-ahead
+     * log since the last save are then replayed, and the log stays attached for later mutations.
      *
      * @return the loaded FollowGraph object or a new one if the file does not exist
      */
     public static FollowGraph loadGraph() {
-        File file = new File("FollowGraph.obj");
+        FollowGraph graph = readGraph();
+        try {
+            graph.openLog(LOG_FILE);
+        } catch (IOException e) {
+            System.err.println("Error opening the log: " + e.getMessage());
+        }
+        return graph;
+    }
+
+    /**
+     * Reads the graph from the snapshot file, or from the old serialized file if there is no snapshot.
+     *
+     * @return the graph read from disk or a new one if neither file exists
+     */
+    private static FollowGraph readGraph() {
+        File snapshot = new File(SNAPSHOT_FILE);
+        if (snapshot.exists()) {
+            try {
+                FollowGraph graph = new FollowGraph(GraphSnapshot.read(snapshot.toPath()));
+                System.out.println("FollowGraph object loaded from file " + SNAPSHOT_FILE + ".");
+                return graph;
+            } catch (IOException e) {
+                System.err.println("Error loading the graph: " + e.getMessage());
+                return new FollowGraph();
+            }
+        }
+
+        File file = new File(LEGACY_FILE);
         if (!file.exists()) {
             System.out.println("follow_graph.obj is not found. New FollowGraph object will be created.");
             return new FollowGraph();
         }
 
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            System.out.println("FollowGraph object loaded from file FollowGraph.obj.");
+            System.out.println("FollowGraph object loaded from file " + LEGACY_FILE + ".");
             return (FollowGraph) ois.readObject();
         } catch (IOException | ClassNotFoundException e) {
             return new FollowGraph();
         }
     }
 
+    /**
+     * Restores a graph written with Java serialization. Handles both the original format, which stored
+     * the connections as a boolean adjacency matrix, and graphs serialized with the sparse store.
+     *
+     * @param in the stream to read from
+     * @throws IOException            if the stream cannot be read
+     * @throws ClassNotFoundException if a class in the stream cannot be found
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        ArrayList<User> stored = (ArrayList<User>) fields.get("users", null);
+        Object storedConnections = fields.get("connections", null);
+
+        users = stored == null ? new ArrayList<>() : stored;
+        snapshotFile = SNAPSHOT_FILE;
+        freeCount = 0;
+        nameIndex = new ConcurrentHashMap<>();
+        // Files from before users had IDs store no nextId; their users are numbered in index order.
+        int storedNextId = fields.get("nextId", -1);
+        nextId = storedNextId < 0 ? users.size() : storedNextId;
+        idIndex = new int[nextId];
+        Arrays.fill(idIndex, -1);
+        if (storedConnections instanceof SparseAdjacency) {
+            connections = (SparseAdjacency) storedConnections;
+        } else {
+            connections = new SparseAdjacency(users.size());
+            if (storedConnections instanceof boolean[][]) {
+                boolean[][] matrix = (boolean[][]) storedConnections;
+                for (int i = 0; i < users.size(); i++) {
+                    for (int j = 0; j < users.size(); j++) {
+                        if (matrix[i][j]) {
+                            connections.addEdge(i, j);
+                        }
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < users.size(); i++) {
+            User u = users.get(i);
+            if (u == null) {
+                freeCount++;
+            } else {
+                if (storedNextId < 0) {
+                    u = new User(u.getUserName(), i, i);
+                    users.set(i, u);
+                }
+                u.setIndexPos(i);
+                nameIndex.put(u.getUserName(), i);
+                idIndex[u.getId()] = i;
+            }
+        }
+        checkDenseMode();
+    }
+
+    /**
+     * Strongly connected components and, once needed, the condensation and reachability index,
+     * tagged with the graph version they describe.
+     */
+    private static final class ComponentCache {
+        private final long version;
+        private final StronglyConnectedComponents components;
+        private final CondensationDag condensation;
+        private final ReachabilityIndex reachability;
+
+        /**
+         * Constructs a cache entry.
+         *
+         * @param version      the graph version the entry describes
+         * @param components   the strongly connected components
+         * @param condensation the condensation, or null if not built
+         * @param reachability the reachability index over the condensation, or null if not built
+         */
+        private ComponentCache(long version, StronglyConnectedComponents components, CondensationDag condensation,
+                               ReachabilityIndex reachability) {
+            this.version = version;
+            this.components = components;
+            this.condensation = condensation;
+            this.reachability = reachability;
+        }
+
+        /**
+         * Gets a copy of this entry without the condensation and anything built on it.
+         *
+         * @return the components alone
+         */
+        private ComponentCache withoutCondensation() {
+            return new ComponentCache(version, components, null, null);
+        }
+    }
+
+    /**
+     * A value computed from the graph, tagged with the graph version it describes.
+     */
+    private static final class Versioned<T> {
+        private final long version;
+        private final T value;
+
+        /**
+         * Constructs a tagged value.
+         *
+         * @param version the graph version the value describes
+         * @param value   the value
+         */
+        private Versioned(long version, T value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
     /**
      * Comparator for sorting users alphabetically by username.
      */
@@ -543,19 +1918,43 @@ public class FollowGraph implements Serializable {
         }
 
         public int compare(User u1, User u2) {
-            int followerCount1 = graph.countFollowers(u1.getIndexPos());
-            int followerCount2 = graph.countFollowers(u2.getIndexPos());
+            int index1 = u1.getIndexPos();
+            int index2 = u2.getIndexPos();
+            int followerCount1 = graph.countFollowers(index1);
+            int followerCount2 = graph.countFollowers(index2);
 
             if (followerCount1 != followerCount2) {
                 return Integer.compare(followerCount2, followerCount1);
             }
 
-            int followingCount1 = graph.countFollowing(u1.getIndexPos());
-            int followingCount2 = graph.countFollowing(u2.getIndexPos());
+            int followingCount1 = graph.countFollowing(index1);
+            int followingCount2 = graph.countFollowing(index2);
             return Integer.compare(followingCount1, followingCount2);
         }
     }
 
+    /**
+     * Comparator for sorting users by PageRank, in descending order, so the most influential come first.
+     * The ranks are taken when the comparator is constructed.
+     */
+    public static class InfluenceComparator implements Comparator<User> {
+        private final InfluenceRanks ranks;
+
+        /**
+         * Constructs an InfluenceComparator with the given graph.
+         *
+         * @param graph the FollowGraph instance
+         */
+        public InfluenceComparator(FollowGraph graph) {
+            this.ranks = graph.influenceRanks();
+        }
+
+        public int compare(User u1, User u2) {
+            int byRank = Double.compare(ranks.pageRank(u2.getIndexPos()), ranks.pageRank(u1.getIndexPos()));
+            return byRank != 0 ? byRank : u1.getUserName().compareTo(u2.getUserName());
+        }
+    }
+
     /**
      * Comparator for sorting users by the number of people they follow, in descending order.
      */
@@ -572,19 +1971,15 @@ public class FollowGraph implements Serializable {
         }
 
         public int compare(User u1, User u2) {
-            int followingComparison = Integer.compare(
-                    graph.countFollowing(u2.getIndexPos()),
-                    graph.countFollowing(u1.getIndexPos())
-            );
+            int index1 = u1.getIndexPos();
+            int index2 = u2.getIndexPos();
+            int followingComparison = Integer.compare(graph.countFollowing(index2), graph.countFollowing(index1));
 
             if (followingComparison != 0) {
                 return followingComparison;
             }
 
-            return Integer.compare(
-                    graph.countFollowers(u2.getIndexPos()),
-                    graph.countFollowers(u1.getIndexPos())
-            );
+            return Integer.compare(graph.countFollowers(index2), graph.countFollowers(index1));
         }
     }
 }
\ No newline at end of file
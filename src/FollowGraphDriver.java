@@ -1,4 +1,12 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
@@ -12,27 +20,40 @@ import java.util.Scanner;
  * A driver class for managing and interacting with a FollowGraph instance.
  * Provides a command-line interface for adding users, managing connections,
  * finding paths, and saving/loading the graph.
+ * Run with --batch [file] to read commands from a file or standard input without the menus; see
+ * BatchCommandRunner for the command format. Add --no-group to apply every addition on its own.
  */
 public class FollowGraphDriver {
     /**
      * The main method serves as the entry point of the application.
      *
-     * @param args Command-line arguments (not used in this implementation).
+     * @param args Command-line arguments: --batch [file] runs commands from a file, or from standard
+     *             input if no file is given, and --no-group turns off batching of additions.
      * @throws FileNotFoundException if a file required for loading users or connections is not found.
      */
     public static void main(String[] args) throws FileNotFoundException {
         FollowGraph graph = FollowGraph.loadGraph();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(graph, args);
+            return;
+        }
         Scanner input = new Scanner(System.in);
         String menu = "(U) Add User\n" +
                 "(C) Add Connection\n" +
                 "(AU) Load all Users\n" +
                 "(AC) Load all Connections\n" +
+                "(IU) Import Users (bulk)\n" +
+                "(IC) Import Connections (bulk)\n" +
                 "(P) Print all Users\n" +
                 "(L) Print all Loops (cycles)\n" +
                 "(RU) Remove User\n" +
                 "(RC) Remove Connection\n" +
                 "(SP) Find Shortest Path\n" +
                 "(AP) Find All Paths\n" +
+                "(DS) Degrees of Separation\n" +
+                "(CR) Check Reachability\n" +
+                "(R) Recommend Users to Follow\n" +
+                "(M) Dump Metrics\n" +
                 "(Q) Quit\n";
 
         System.out.println(menu);
@@ -49,10 +70,21 @@ public class FollowGraphDriver {
                 String file = input.nextLine();
                 graph.loadAllConnections(file);
             }
+            if (option.equals("IU")) {
+                System.out.print("Enter the file name: ");
+                String file = input.nextLine();
+                GraphImporter.importUsers(graph, file);
+            }
+            if (option.equals("IC")) {
+                System.out.print("Enter the file name: ");
+                String file = input.nextLine();
+                GraphImporter.importConnections(graph, file);
+            }
             if (option.equals("P")) {
                 System.out.println("(SA) Sort Users by Name\n" +
                         "(SB) Sort Users by Number of Followers\n" +
                         "(SC) Sort Users by Number of Following\n" +
+                        "(SD) Sort Users by Influence (PageRank)\n" +
                         "(Q) Quit // back to main menu");
                 System.out.print("Enter a selection: ");
                 String comp = input.nextLine().toUpperCase();
@@ -66,10 +98,14 @@ public class FollowGraphDriver {
                     } else if (comp.equals("SC")) {
                         System.out.println("\nUsers:");
                         graph.printAllUsers(new FollowGraph.FollowingComparator(graph));
+                    } else if (comp.equals("SD")) {
+                        System.out.println("\nUsers:");
+                        graph.printAllUsers(new FollowGraph.InfluenceComparator(graph));
                     }
                     System.out.println("(SA) Sort Users by Name\n" +
                             "(SB) Sort Users by Number of Followers\n" +
                             "(SC) Sort Users by Number of Following\n" +
+                            "(SD) Sort Users by Influence (PageRank)\n" +
                             "(Q) Quit // back to main menu");
                     System.out.print("Enter a selection: ");
                     comp = input.nextLine().toUpperCase();
@@ -121,7 +157,6 @@ public class FollowGraphDriver {
                 System.out.print("Please enter the desired destination: ");
                 String t = input.nextLine();
                 List<String> path = graph.allPaths(f, t);
-                Collections.sort(path);
                 if (!path.isEmpty()) {
                     System.out.println("There are a total of " + path.size() + " paths: ");
                     for (String p : path) {
@@ -129,6 +164,69 @@ public class FollowGraphDriver {
                     }
                 }
             }
+            if (option.equals("DS")) {
+                System.out.print("Please enter the number of users to sample (blank for all): ");
+                String n = input.nextLine().trim();
+                int sample = 0;
+                if (!n.isEmpty()) {
+                    try {
+                        sample = Integer.parseInt(n);
+                    } catch (NumberFormatException e) {
+                        System.out.println("That is not a number, using all users.");
+                    }
+                }
+                DistanceStatistics stats = graph.distanceStatistics(sample, System.nanoTime());
+                for (int d = 1; d <= stats.maxDistance(); d++) {
+                    System.out.println("Pairs at distance " + d + ": " + stats.pairsAtDistance(d));
+                }
+                System.out.println("Unreachable pairs: " + stats.unreachablePairs());
+                System.out.printf("Average degrees of separation: %.3f%n", stats.averageDistance());
+                System.out.println("Diameter" + (sample > 0 ? " (at least)" : "") + ": "
+                        + stats.approximateDiameter());
+            }
+            if (option.equals("CR")) {
+                System.out.print("Please enter the desired source: ");
+                String f = input.nextLine();
+                System.out.print("Please enter the desired destination: ");
+                String t = input.nextLine();
+                if (graph.getUserByName(f) == null) {
+                    System.out.println("The vertex " + f + " does not exist.");
+                } else if (graph.getUserByName(t) == null) {
+                    System.out.println("The vertex " + t + " does not exist.");
+                } else {
+                    System.out.println(f + (graph.canReach(f, t) ? " can reach " : " cannot reach ") + t + ".");
+                }
+            }
+            if (option.equals("R")) {
+                System.out.print("Please enter the user: ");
+                String u = input.nextLine();
+                System.out.println("(FF) Friends of Friends\n" +
+                        "(CF) Common Followers\n" +
+                        "(AA) Adamic-Adar\n" +
+                        "(JC) Jaccard");
+                System.out.print("Enter a selection: ");
+                String m = input.nextLine().toUpperCase();
+                Recommender.Metric metric = m.equals("FF") ? Recommender.Metric.FRIENDS_OF_FRIENDS
+                        : m.equals("CF") ? Recommender.Metric.COMMON_FOLLOWERS
+                        : m.equals("JC") ? Recommender.Metric.JACCARD
+                        : Recommender.Metric.ADAMIC_ADAR;
+                if (graph.getUserByName(u) == null) {
+                    System.out.println("The vertex " + u + " does not exist.");
+                } else {
+                    List<String> recommended = graph.recommend(u, metric, 10);
+                    if (recommended.isEmpty()) {
+                        System.out.println("There are no users to recommend.");
+                    } else {
+                        System.out.println("Recommended users for " + u + ":");
+                        for (String r : recommended) {
+                            System.out.println(r);
+                        }
+                    }
+                }
+            }
+            if (option.equals("M")) {
+                System.out.print(GraphMetrics.view().dump());
+            }
             if (option.equals("RU")) {
                 System.out.print("Please enter the user to remove: ");
                 String u = input.nextLine();
@@ -182,4 +280,41 @@ public class FollowGraphDriver {
         }
         graph.saveGraph();
     }
+
+    /**
+     * Runs commands in batch mode. Everything printed, including output from the graph itself, goes
+     * through one large buffer that is written out when the batch ends.
+     *
+     * @param graph the graph to run the commands against
+     * @param args  the command-line arguments, starting with --batch
+     */
+    private static void runBatch(FollowGraph graph, String[] args) {
+        String file = null;
+        boolean group = true;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--no-group")) {
+                group = false;
+            } else {
+                file = args[i];
+            }
+        }
+        PrintStream console = System.out;
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16),
+                false);
+        System.setOut(out);
+        BatchCommandRunner runner = new BatchCommandRunner(graph, out, group);
+        try (BufferedReader reader = new BufferedReader(file == null
+                ? new InputStreamReader(System.in) : new FileReader(file), 1 << 16)) {
+            runner.run(reader);
+        } catch (IOException e) {
+            System.err.println("Error reading the commands: " + e.getMessage());
+        } finally {
+            graph.saveGraph();
+            out.flush();
+            System.setOut(console);
+        }
+        if (runner.errors() > 0) {
+            System.exit(1);
+        }
+    }
 }
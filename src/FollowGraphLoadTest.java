@@ -0,0 +1,329 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Load generator for FollowGraphServer, measuring throughput and latency percentiles per endpoint.
+ * The test first creates a synthetic power-law graph through the service, then runs a fixed number of
+ * clients on virtual threads for a fixed time. Each client sends one request at a time, mostly reads
+ * with a share of follows and unfollows mixed in. Latencies are kept per client and merged at the end.
+ * With --serve the test starts its own server over an empty graph on a free port, so nothing else needs
+ * to be running.
+ * <p>
+ * Usage: java FollowGraphLoadTest [--url http://localhost:8080] [--serve] [--users N]
+ * [--clients N] [--seconds N] [--writes 0.10] [--seed N]
+ */
+public class FollowGraphLoadTest {
+    /**
+     * The endpoints exercised, in the order they are reported
+     */
+    private static final String[] ENDPOINTS = {"counts", "followers", "following", "shortest-path", "top", "follow",
+            "unfollow"};
+
+    /**
+     * Cumulative share of the reads going to each read endpoint
+     */
+    private static final double[] READ_MIX = {0.35, 0.55, 0.75, 0.95, 1.0};
+
+    private final HttpClient client;
+    private final String url;
+    private final int users;
+    private final double writes;
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * Constructs a load test against a running service.
+     *
+     * @param url    the base URL of the service
+     * @param users  the number of users in the synthetic graph
+     * @param writes the share of requests that are follows or unfollows
+     */
+    public FollowGraphLoadTest(String url, int users, double writes) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.url = url;
+        this.users = users;
+        this.writes = writes;
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args the options described in the class comment
+     * @throws Exception if the test cannot run
+     */
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:" + FollowGraphServer.DEFAULT_PORT;
+        boolean serve = false;
+        int users = 5_000;
+        int clients = 64;
+        int seconds = 10;
+        double writes = 0.10;
+        long seed = 42;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--serve" -> serve = true;
+                case "--url" -> url = args[++i];
+                case "--users" -> users = Integer.parseInt(args[++i]);
+                case "--clients" -> clients = Integer.parseInt(args[++i]);
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                case "--writes" -> writes = Double.parseDouble(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        FollowGraphServer server = null;
+        if (serve) {
+            server = new FollowGraphServer(new ConcurrentFollowGraph(), 0);
+            server.start();
+            url = "http://localhost:" + server.port();
+        }
+        try {
+            FollowGraphLoadTest test = new FollowGraphLoadTest(url, users, writes);
+            long start = System.nanoTime();
+            int connections = test.populate(clients, seed);
+            System.out.printf(Locale.ROOT, "Created %d users and %d connections in %.1f s.%n",
+                    users, connections, (System.nanoTime() - start) / 1e9);
+            test.run(clients, seconds, seed);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    /**
+     * Creates the synthetic graph through the service, spreading the requests over the clients.
+     *
+     * @param clients the number of requests in flight at once
+     * @param seed    the seed of the graph generator
+     * @return the number of connections created
+     */
+    private int populate(int clients, long seed) throws InterruptedException, ExecutionException {
+        int[][] edges = GraphGenerator.generate("powerlaw", users, seed);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int first = c;
+                tasks.add(pool.submit(() -> {
+                    for (int u = first; u < users; u += clients) {
+                        send("POST", "/users?name=" + name(u));
+                    }
+                    return null;
+                }));
+            }
+            wait(tasks);
+            for (int c = 0; c < clients; c++) {
+                int first = c;
+                tasks.add(pool.submit(() -> {
+                    for (int e = first; e < edges[0].length; e += clients) {
+                        send("POST", "/follow?from=" + name(edges[0][e]) + "&to=" + name(edges[1][e]));
+                    }
+                    return null;
+                }));
+            }
+            wait(tasks);
+        }
+        return edges[0].length;
+    }
+
+    /**
+     * Runs the clients for the given time and prints the results.
+     *
+     * @param clients the number of clients
+     * @param seconds how long to run
+     * @param seed    the seed of the clients' request choices
+     */
+    private void run(int clients, int seconds, long seed) throws InterruptedException, ExecutionException {
+        errors.set(0);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Future<Latencies[]>> tasks = new ArrayList<>();
+        long start = System.nanoTime();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                SplittableRandom random = seeds.split();
+                tasks.add(pool.submit(() -> client(random, deadline)));
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        Latencies[] merged = new Latencies[ENDPOINTS.length];
+        Latencies all = new Latencies();
+        for (int i = 0; i < ENDPOINTS.length; i++) {
+            merged[i] = new Latencies();
+        }
+        for (Future<Latencies[]> task : tasks) {
+            Latencies[] own = task.get();
+            for (int i = 0; i < ENDPOINTS.length; i++) {
+                merged[i].addAll(own[i]);
+                all.addAll(own[i]);
+            }
+        }
+
+        System.out.printf("%-14s %10s %10s %10s %10s %10s%n", "Endpoint", "Requests", "p50 ms", "p90 ms",
+                "p99 ms", "max ms");
+        for (int i = 0; i < ENDPOINTS.length; i++) {
+            print(ENDPOINTS[i], merged[i]);
+        }
+        print("all", all);
+        System.out.printf(Locale.ROOT, "%d clients, %.1f s, %.0f requests/s, %d errors.%n",
+                clients, elapsed, all.size / elapsed, errors.get());
+    }
+
+    /**
+     * Sends requests one after another until the deadline.
+     *
+     * @param random   the source of the request choices
+     * @param deadline the System.nanoTime value at which to stop
+     * @return the latencies of each endpoint
+     */
+    private Latencies[] client(SplittableRandom random, long deadline) {
+        Latencies[] latencies = new Latencies[ENDPOINTS.length];
+        for (int i = 0; i < ENDPOINTS.length; i++) {
+            latencies[i] = new Latencies();
+        }
+        while (System.nanoTime() < deadline) {
+            String a = name(random.nextInt(users));
+            String b = name(random.nextInt(users));
+            int endpoint;
+            if (random.nextDouble() < writes) {
+                endpoint = random.nextBoolean() ? 5 : 6;
+            } else {
+                double r = random.nextDouble();
+                endpoint = 0;
+                while (r >= READ_MIX[endpoint]) {
+                    endpoint++;
+                }
+            }
+            String path = switch (endpoint) {
+                case 0 -> "/counts?user=" + a;
+                case 1 -> "/followers?user=" + a;
+                case 2 -> "/following?user=" + a;
+                case 3 -> "/shortest-path?from=" + a + "&to=" + b;
+                case 4 -> "/top?by=followers&k=10";
+                case 5 -> "/follow?from=" + a + "&to=" + b;
+                default -> "/unfollow?from=" + a + "&to=" + b;
+            };
+            long start = System.nanoTime();
+            send(endpoint >= 5 ? "POST" : "GET", path);
+            latencies[endpoint].add(System.nanoTime() - start);
+        }
+        return latencies;
+    }
+
+    /**
+     * Sends one request and waits for the whole response, counting failures as errors.
+     */
+    private void send(String method, String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() >= 400) {
+                errors.incrementAndGet();
+            }
+        } catch (IOException e) {
+            errors.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the URL-encoded name of a synthetic user.
+     */
+    private static String name(int user) {
+        return URLEncoder.encode("user" + user, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Waits for every task and forgets them.
+     */
+    private static void wait(List<Future<?>> tasks) throws InterruptedException, ExecutionException {
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        tasks.clear();
+    }
+
+    /**
+     * Prints one row of the results table.
+     */
+    private static void print(String endpoint, Latencies latencies) {
+        latencies.sort();
+        System.out.printf(Locale.ROOT, "%-14s %10d %10.3f %10.3f %10.3f %10.3f%n", endpoint, latencies.size,
+                latencies.percentile(50) / 1e6, latencies.percentile(90) / 1e6,
+                latencies.percentile(99) / 1e6, latencies.percentile(100) / 1e6);
+    }
+
+    /**
+     * A growable list of latencies in nanoseconds.
+     */
+    private static class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+
+        /**
+         * Adds a latency.
+         */
+        private void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        /**
+         * Adds every latency of another list.
+         */
+        private void addAll(Latencies other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(size + other.size, values.length * 2));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        /**
+         * Sorts the latencies so percentiles can be read.
+         */
+        private void sort() {
+            Arrays.sort(values, 0, size);
+        }
+
+        /**
+         * Gets a percentile of the sorted latencies, or 0 if there are none.
+         */
+        private long percentile(double percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * size);
+            return values[Math.max(0, Math.min(size, rank) - 1)];
+        }
+    }
+}
@@ -0,0 +1,337 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * A small HTTP service answering FollowGraph queries with JSON, built on the JDK's own HTTP server.
+ * Each request runs on its own virtual thread, and the graph is wrapped in a ConcurrentFollowGraph so
+ * that lookups run as optimistic reads and do not wait for follows and unfollows being applied.
+ * Arguments are passed as query parameters:
+ * <pre>
+ * POST /users?name=A                  add a user
+ * POST /follow?from=A&amp;to=B            add a connection
+ * POST /unfollow?from=A&amp;to=B          remove a connection
+ * GET  /followers?user=A              list a user's followers
+ * GET  /following?user=A              list the users a user follows
+ * GET  /counts?user=A                 count a user's followers and following
+ * GET  /shortest-path?from=A&amp;to=B     find a shortest path
+ * GET  /top?by=followers&amp;k=10         list the users with the most followers, or by=following
+ * </pre>
+ * Unknown users give 404, missing or malformed parameters give 400.
+ */
+public class FollowGraphServer {
+    /**
+     * Port used when none is given
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * Largest k accepted by the top endpoint
+     */
+    public static final int MAX_TOP = 1000;
+
+    static {
+        // The JDK server writes headers and body separately; with Nagle's algorithm on, every response
+        // then waits out the client's delayed acknowledgement, about 40 ms.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ConcurrentFollowGraph graph;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a server for a graph. The server does not accept requests until started.
+     *
+     * @param graph the graph to serve
+     * @param port  the port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public FollowGraphServer(ConcurrentFollowGraph graph, int port) throws IOException {
+        this.graph = graph;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for requests in progress, and shuts down the
+     * request threads.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return the port
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Starts a server over the saved graph and saves the graph again when the process is stopped.
+     *
+     * @param args the port to listen on, optionally
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        ConcurrentFollowGraph graph = new ConcurrentFollowGraph(FollowGraph.loadGraph());
+        FollowGraphServer server = new FollowGraphServer(graph, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            graph.saveGraph();
+        }));
+        server.start();
+        System.out.println("FollowGraph server listening on port " + server.port() + ".");
+    }
+
+    /**
+     * Answers one request, turning failures into error responses.
+     *
+     * @param exchange the request and its response
+     * @throws IOException if the response cannot be written
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            switch (path) {
+                case "/users":
+                    requireMethod(method, "POST");
+                    String name = require(params, "name");
+                    boolean added = graph.addUser(name);
+                    send(exchange, added ? 201 : 200, "{\"user\":" + quote(name) + ",\"added\":" + added + "}");
+                    break;
+                case "/follow":
+                    requireMethod(method, "POST");
+                    send(exchange, 200, "{\"added\":" + graph.addConnections(existing(params, "from"),
+                            existing(params, "to")) + "}");
+                    break;
+                case "/unfollow":
+                    requireMethod(method, "POST");
+                    send(exchange, 200, "{\"removed\":" + graph.removeConnection(existing(params, "from"),
+                            existing(params, "to")) + "}");
+                    break;
+                case "/followers":
+                    requireMethod(method, "GET");
+                    String followed = existing(params, "user");
+                    send(exchange, 200, "{\"user\":" + quote(followed) + ",\"followers\":"
+                            + array(graph.getFollowers(followed)) + "}");
+                    break;
+                case "/following":
+                    requireMethod(method, "GET");
+                    String follower = existing(params, "user");
+                    send(exchange, 200, "{\"user\":" + quote(follower) + ",\"following\":"
+                            + array(graph.getFollowing(follower)) + "}");
+                    break;
+                case "/counts":
+                    requireMethod(method, "GET");
+                    String user = existing(params, "user");
+                    send(exchange, 200, "{\"user\":" + quote(user)
+                            + ",\"followers\":" + graph.getFollowerCount(user)
+                            + ",\"following\":" + graph.getFollowingCount(user) + "}");
+                    break;
+                case "/shortest-path":
+                    requireMethod(method, "GET");
+                    send(exchange, 200, shortestPath(existing(params, "from"), existing(params, "to")));
+                    break;
+                case "/top":
+                    requireMethod(method, "GET");
+                    send(exchange, 200, top(params));
+                    break;
+                default:
+                    throw new RequestException(404, "no such endpoint " + path);
+            }
+        } catch (RequestException e) {
+            send(exchange, e.status, "{\"error\":" + quote(e.getMessage()) + "}");
+        } catch (RuntimeException e) {
+            send(exchange, 500, "{\"error\":" + quote(String.valueOf(e)) + "}");
+        }
+    }
+
+    /**
+     * Builds the shortest path response, with a null path if there is none.
+     */
+    private String shortestPath(String from, String to) {
+        String path = graph.shortestPath(from, to);
+        if (path.startsWith("The vertex ")) {
+            // A user was removed after the existence check.
+            throw new RequestException(404, path);
+        }
+        if (path.equals("No path found.")) {
+            return "{\"from\":" + quote(from) + ",\"to\":" + quote(to) + ",\"path\":null}";
+        }
+        return "{\"from\":" + quote(from) + ",\"to\":" + quote(to) + ",\"path\":"
+                + array(List.of(path.split(" -> "))) + "}";
+    }
+
+    /**
+     * Builds the top-K response.
+     */
+    private String top(Map<String, String> params) {
+        String by = params.getOrDefault("by", "followers");
+        int k;
+        try {
+            k = Integer.parseInt(params.getOrDefault("k", "10"));
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, "k must be a number");
+        }
+        if (k < 0 || k > MAX_TOP) {
+            throw new RequestException(400, "k must be between 0 and " + MAX_TOP);
+        }
+        List<String> users;
+        if (by.equals("followers")) {
+            users = graph.topFollowed(k);
+        } else if (by.equals("following")) {
+            users = graph.topFollowing(k);
+        } else {
+            throw new RequestException(400, "by must be followers or following");
+        }
+        return "{\"by\":" + quote(by) + ",\"users\":" + array(users) + "}";
+    }
+
+    /**
+     * Rejects a request made with the wrong method.
+     */
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new RequestException(405, "use " + expected);
+        }
+    }
+
+    /**
+     * Gets a required parameter.
+     */
+    private static String require(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new RequestException(400, "missing parameter " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Gets a required parameter naming a user who must exist.
+     */
+    private String existing(Map<String, String> params, String name) {
+        String user = require(params, name);
+        if (graph.getUserByName(user) == null) {
+            throw new RequestException(404, "no such user " + user);
+        }
+        return user;
+    }
+
+    /**
+     * Splits a raw query string into decoded parameters.
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            try {
+                String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                params.put(key, value);
+            } catch (IllegalArgumentException e) {
+                throw new RequestException(400, "malformed query");
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Writes a JSON response and closes the exchange.
+     */
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Formats a list of names as a JSON array.
+     */
+    private static String array(List<String> values) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(quote(values.get(i)));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Formats a string as a JSON string literal.
+     */
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * A request that cannot be answered, with the status to answer it with.
+     */
+    private static class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        /**
+         * Constructs the exception.
+         *
+         * @param status  the HTTP status code
+         * @param message the error message sent to the client
+         */
+        private RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Generator of synthetic follow graphs of a chosen size and shape, used by the benchmarks and load tests:
+ * uniformly random follows, power-law follows grown by preferential attachment, or dense cliques joined
+ * by a few bridges.
+ */
+public class GraphGenerator {
+    /**
+     * Names of the shapes the generator can produce
+     */
+    public static final String[] SHAPES = {"random", "powerlaw", "cliques"};
+
+    /**
+     * Average number of users each user follows in the generated graphs
+     */
+    private static final int AVERAGE_DEGREE = 8;
+
+    /**
+     * Size of each community in the clique-shaped graphs
+     */
+    private static final int CLIQUE_SIZE = 24;
+
+    /**
+     * Generates the connections of a synthetic graph. Users are numbered from 0 in insertion order.
+     *
+     * @param shape "random", "powerlaw" or "cliques"
+     * @param size  the number of users
+     * @param seed  the seed of the generator
+     * @return the connections as parallel arrays of source and target positions, without self-follows
+     */
+    public static int[][] generate(String shape, int size, long seed) {
+        Random random = new Random(seed);
+        int target = size * (size < 100 ? 2 : AVERAGE_DEGREE);
+        int[] from = new int[target];
+        int[] to = new int[target];
+        int count = 0;
+        switch (shape) {
+            case "random" -> {
+                while (count < target && size > 1) {
+                    int u = random.nextInt(size);
+                    int v = random.nextInt(size);
+                    if (u != v) {
+                        from[count] = u;
+                        to[count++] = v;
+                    }
+                }
+            }
+            case "powerlaw" -> {
+                // Preferential attachment: each follow targets the end of an earlier follow, so users who
+                // are already followed a lot attract more followers.
+                int perUser = Math.max(1, target / Math.max(1, size));
+                for (int u = 1; u < size && count < target; u++) {
+                    for (int k = 0; k < perUser && count < target; k++) {
+                        int v = count == 0 || random.nextInt(4) == 0 ? random.nextInt(u) : to[random.nextInt(count)];
+                        if (v != u) {
+                            from[count] = u;
+                            to[count++] = v;
+                        }
+                    }
+                }
+            }
+            case "cliques" -> {
+                int clique = Math.min(CLIQUE_SIZE, Math.max(2, size / 2));
+                for (int start = 0; start < size; start += clique) {
+                    int end = Math.min(size, start + clique);
+                    for (int u = start; u < end; u++) {
+                        for (int v = start; v < end; v++) {
+                            if (u != v) {
+                                if (count == from.length) {
+                                    from = Arrays.copyOf(from, count * 2);
+                                    to = Arrays.copyOf(to, count * 2);
+                                }
+                                from[count] = u;
+                                to[count++] = v;
+                            }
+                        }
+                    }
+                    if (end < size) {
+                        if (count == from.length) {
+                            from = Arrays.copyOf(from, count * 2);
+                            to = Arrays.copyOf(to, count * 2);
+                        }
+                        from[count] = end - 1;
+                        to[count++] = end;
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+        return new int[][]{Arrays.copyOf(from, count), Arrays.copyOf(to, count)};
+    }
+
+    /**
+     * Gets the name of a generated user.
+     *
+     * @param user the position of the user
+     * @return the username
+     */
+    public static String name(int user) {
+        return "user" + user;
+    }
+}
@@ -0,0 +1,308 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Bulk importer for large users and connections files.
+ * Files are memory-mapped and parsed directly from bytes, nothing is printed per record,
+ * and connections are parsed in parallel chunks and applied to the graph in a single batch.
+ * A summary with totals and throughput is printed once the import finishes.
+ */
+public class GraphImporter {
+    /**
+     * Largest region mapped at once
+     */
+    private static final long MAX_CHUNK = 1L << 30;
+
+    /**
+     * Most connections passed to the graph in one call, the largest array the JVM allocates
+     */
+    private static final int MAX_BATCH = Integer.MAX_VALUE - 8;
+
+    /**
+     * Imports every line of a users file as a user name.
+     *
+     * @param graph    the graph to add the users to
+     * @param filename the name of the file containing one user name per line
+     * @return the number of users that were added
+     */
+    public static int importUsers(FollowGraph graph, String filename) {
+        File file = new File(filename);
+        if (!file.exists() || !file.isFile()) {
+            System.out.println("Error: File " + filename + " does not exist or is not a valid file.");
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        List<String> names = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] scratch = new byte[256];
+            for (long pos = 0; pos < size; ) {
+                long end = alignToLine(channel, Math.min(size, pos + MAX_CHUNK), size);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, end - pos);
+                int lineStart = 0;
+                int limit = buffer.limit();
+                for (int i = 0; i <= limit; i++) {
+                    if (i == limit || buffer.get(i) == '\n') {
+                        int lineEnd = trimCarriageReturn(buffer, lineStart, i);
+                        if (i < limit || lineEnd > lineStart) {
+                            scratch = ensureScratch(scratch, lineEnd - lineStart);
+                            names.add(decode(buffer, lineStart, lineEnd, scratch));
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                pos = end;
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading the file: " + e.getMessage());
+            return 0;
+        }
+
+        int added = graph.addUsers(names);
+        printSummary("users", added, names.size() - added, filename, System.nanoTime() - start);
+        return added;
+    }
+
+    /**
+     * Imports a connections file in the "from, to" format using one parsing thread per core.
+     *
+     * @param graph    the graph to add the connections to
+     * @param filename the name of the file containing one connection per line
+     * @return the number of connections that were added
+     */
+    public static long importConnections(FollowGraph graph, String filename) {
+        return importConnections(graph, filename, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Imports a connections file in the "from, to" format.
+     * Connections naming users that do not exist, and malformed lines, are skipped.
+     *
+     * @param graph    the graph to add the connections to
+     * @param filename the name of the file containing one connection per line
+     * @param threads  the number of threads used to parse the file
+     * @return the number of connections that were added
+     */
+    public static long importConnections(FollowGraph graph, String filename, int threads) {
+        File file = new File(filename);
+        if (!file.exists() || !file.isFile()) {
+            System.out.println("Error: File " + filename + " does not exist or is not a valid file.");
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        List<EdgeChunk> chunks = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkCount = Math.max(Math.max(1, threads), (size + MAX_CHUNK - 1) / MAX_CHUNK);
+            long chunkSize = Math.max(1, (size + chunkCount - 1) / chunkCount);
+
+            List<Future<EdgeChunk>> futures = new ArrayList<>();
+            long pos = 0;
+            while (pos < size) {
+                long end = alignToLine(channel, Math.min(size, pos + chunkSize), size);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, end - pos);
+                futures.add(pool.submit(new ChunkParser(graph, buffer)));
+                pos = end;
+            }
+            for (Future<EdgeChunk> future : futures) {
+                chunks.add(future.get());
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading the file: " + e.getMessage());
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        long total = 0;
+        long skipped = 0;
+        for (EdgeChunk chunk : chunks) {
+            total += chunk.count;
+            skipped += chunk.skipped;
+        }
+        // A file can hold more connections than fit in one array, so they are added in batches.
+        long added = 0;
+        int first = 0;
+        while (first < chunks.size()) {
+            int last = first;
+            long batch = 0;
+            while (last < chunks.size() && batch + chunks.get(last).count <= MAX_BATCH) {
+                batch += chunks.get(last).count;
+                last++;
+            }
+            int[] from = new int[(int) batch];
+            int[] to = new int[(int) batch];
+            int offset = 0;
+            for (int i = first; i < last; i++) {
+                EdgeChunk chunk = chunks.get(i);
+                System.arraycopy(chunk.from, 0, from, offset, chunk.count);
+                System.arraycopy(chunk.to, 0, to, offset, chunk.count);
+                offset += chunk.count;
+            }
+            added += graph.addConnections(from, to, offset);
+            first = last;
+        }
+        printSummary("connections", added, skipped + (total - added), filename, System.nanoTime() - start);
+        return added;
+    }
+
+    /**
+     * Parses one line-aligned region of a connections file into index pairs.
+     * Only reads the graph, so several parsers may run at the same time.
+     */
+    private static class ChunkParser implements Callable<EdgeChunk> {
+        private final FollowGraph graph;
+        private final MappedByteBuffer buffer;
+
+        ChunkParser(FollowGraph graph, MappedByteBuffer buffer) {
+            this.graph = graph;
+            this.buffer = buffer;
+        }
+
+        public EdgeChunk call() {
+            EdgeChunk chunk = new EdgeChunk();
+            byte[] scratch = new byte[256];
+            int limit = buffer.limit();
+            int lineStart = 0;
+            int comma = -1;
+            for (int i = 0; i <= limit; i++) {
+                byte b = (i == limit) ? (byte) '\n' : buffer.get(i);
+                if (b == ',' && comma < 0) {
+                    comma = i;
+                } else if (b == '\n') {
+                    int lineEnd = trimCarriageReturn(buffer, lineStart, i);
+                    if (comma < 0) {
+                        if (lineEnd > lineStart) {
+                            chunk.skipped++;
+                        }
+                    } else {
+                        int toStart = comma + 1;
+                        if (toStart < lineEnd && buffer.get(toStart) == ' ') {
+                            toStart++;
+                        }
+                        scratch = ensureScratch(scratch, lineEnd - lineStart);
+                        int from = graph.indexOf(decode(buffer, lineStart, comma, scratch));
+                        int to = graph.indexOf(decode(buffer, toStart, lineEnd, scratch));
+                        if (from < 0 || to < 0) {
+                            chunk.skipped++;
+                        } else {
+                            chunk.add(from, to);
+                        }
+                    }
+                    lineStart = i + 1;
+                    comma = -1;
+                }
+            }
+            return chunk;
+        }
+    }
+
+    /**
+     * Growable pair of index arrays holding the connections parsed from one chunk.
+     */
+    private static class EdgeChunk {
+        private int[] from = new int[1024];
+        private int[] to = new int[1024];
+        private int count;
+        private long skipped;
+
+        void add(int f, int t) {
+            if (count == from.length) {
+                from = Arrays.copyOf(from, count * 2);
+                to = Arrays.copyOf(to, count * 2);
+            }
+            from[count] = f;
+            to[count] = t;
+            count++;
+        }
+    }
+
+    /**
+     * Moves a file position forward to just past the next line break.
+     *
+     * @param channel  the file being read
+     * @param position the candidate position
+     * @param size     the size of the file
+     * @return the position of the first byte of the next line, or the file size
+     * @throws IOException if the file cannot be read
+     */
+    private static long alignToLine(FileChannel channel, long position, long size) throws IOException {
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long pos = position;
+        while (pos < size) {
+            probe.clear();
+            int read = channel.read(probe, pos);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    /**
+     * Excludes a trailing carriage return from a line.
+     */
+    private static int trimCarriageReturn(MappedByteBuffer buffer, int start, int end) {
+        return (end > start && buffer.get(end - 1) == '\r') ? end - 1 : end;
+    }
+
+    /**
+     * Makes sure the scratch array can hold a line of the given length.
+     */
+    private static byte[] ensureScratch(byte[] scratch, int length) {
+        return length <= scratch.length ? scratch : new byte[Math.max(length, scratch.length * 2)];
+    }
+
+    /**
+     * Decodes a UTF-8 range of the buffer into a String through the scratch array.
+     */
+    private static String decode(MappedByteBuffer buffer, int start, int end, byte[] scratch) {
+        buffer.get(start, scratch, 0, end - start);
+        return new String(scratch, 0, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Prints the totals and throughput of an import.
+     */
+    private static void printSummary(String kind, long added, long skipped, String filename, long nanos) {
+        long millis = Math.max(1, nanos / 1_000_000);
+        long perSecond = (added + skipped) * 1000 / millis;
+        System.out.println("Imported " + added + " " + kind + " (" + skipped + " skipped) from " + filename
+                + " in " + millis + " ms (" + perSecond + " records per second).");
+    }
+}
@@ -0,0 +1,324 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Counters and latency histograms for the FollowGraph hot paths, shared by every graph in the process.
+ * Each operation has a LongAdder call counter, a log-linear latency histogram in the style of
+ * HdrHistogram with about 6% precision, and for traversals a histogram of users visited per call.
+ * Hits and misses of the path query caches are counted as well.
+ * Recording is lock-free and allocation-free. The metrics are published over JMX as
+ * FollowGraph:type=GraphMetrics and printed by the driver's metrics command.
+ * Starting the JVM with -Dfollowgraph.metrics=false turns collection off; the switch is a static final
+ * constant, so the JIT removes the instrumentation entirely instead of testing it on every call.
+ */
+public final class GraphMetrics implements GraphMetricsMBean {
+    /**
+     * Whether metrics are collected, fixed when the class is loaded
+     */
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("followgraph.metrics"));
+
+    /**
+     * The instrumented operations
+     */
+    public enum Op {
+        ADD_USER, ADD_CONNECTION, REMOVE_USER, REMOVE_CONNECTION, GET_USER, SHORTEST_PATH, ALL_PATHS, FIND_LOOPS
+    }
+
+    private static final Op[] OPS = Op.values();
+    private static final LongAdder[] COUNTS = new LongAdder[OPS.length];
+    private static final Histogram[] LATENCY = new Histogram[OPS.length];
+    private static final Histogram[] VISITED = new Histogram[OPS.length];
+    private static final LongAdder PATH_CACHE_HITS = new LongAdder();
+    private static final LongAdder PATH_CACHE_MISSES = new LongAdder();
+
+    static {
+        for (int i = 0; i < OPS.length; i++) {
+            COUNTS[i] = new LongAdder();
+            LATENCY[i] = new Histogram();
+            VISITED[i] = new Histogram();
+        }
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer()
+                        .registerMBean(new GraphMetrics(), new ObjectName("FollowGraph:type=GraphMetrics"));
+            } catch (JMException | SecurityException e) {
+                // Another class loader registered it already, or JMX is unavailable; metrics still work.
+            }
+        }
+    }
+
+    /**
+     * Constructs the JMX view of the metrics. The metrics themselves are static.
+     */
+    private GraphMetrics() {
+    }
+
+    /**
+     * Marks the start of an operation.
+     *
+     * @return the start time to pass to record, or 0 if metrics are disabled
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a finished operation and its latency.
+     *
+     * @param op    the operation
+     * @param start the value returned by start when the operation began
+     */
+    public static void record(Op op, long start) {
+        if (ENABLED) {
+            COUNTS[op.ordinal()].increment();
+            LATENCY[op.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a batch of operations applied by one call. The batch counts as that many operations, each
+     * taking an equal share of the batch's latency.
+     *
+     * @param op         the operation
+     * @param start      the value returned by start when the batch began
+     * @param operations the number of operations in the batch
+     */
+    public static void recordBatch(Op op, long start, int operations) {
+        if (ENABLED && operations > 0) {
+            COUNTS[op.ordinal()].add(operations);
+            LATENCY[op.ordinal()].record((System.nanoTime() - start) / operations, operations);
+        }
+    }
+
+    /**
+     * Records the number of users a traversal visited.
+     *
+     * @param op      the traversal
+     * @param visited the number of users visited
+     */
+    public static void recordVisited(Op op, long visited) {
+        if (ENABLED) {
+            VISITED[op.ordinal()].record(visited);
+        }
+    }
+
+    /**
+     * Records a lookup in a path query cache.
+     *
+     * @param hit whether the lookup was answered from the cache
+     */
+    public static void recordPathCache(boolean hit) {
+        if (ENABLED) {
+            (hit ? PATH_CACHE_HITS : PATH_CACHE_MISSES).increment();
+        }
+    }
+
+    /**
+     * Gets the JMX view of the metrics.
+     *
+     * @return an object answering the management interface
+     */
+    public static GraphMetricsMBean view() {
+        return new GraphMetrics();
+    }
+
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public String[] getOperations() {
+        String[] names = new String[OPS.length];
+        for (int i = 0; i < OPS.length; i++) {
+            names[i] = OPS[i].name();
+        }
+        return names;
+    }
+
+    public long getTotalOperations() {
+        long total = 0;
+        for (LongAdder count : COUNTS) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    public long count(String operation) {
+        return COUNTS[Op.valueOf(operation).ordinal()].sum();
+    }
+
+    public double latencyMicros(String operation, double percentile) {
+        return LATENCY[Op.valueOf(operation).ordinal()].percentile(percentile) / 1000.0;
+    }
+
+    public double meanVisited(String operation) {
+        return VISITED[Op.valueOf(operation).ordinal()].mean();
+    }
+
+    public long getPathCacheHits() {
+        return PATH_CACHE_HITS.sum();
+    }
+
+    public long getPathCacheMisses() {
+        return PATH_CACHE_MISSES.sum();
+    }
+
+    public double getPathCacheHitRate() {
+        long hits = PATH_CACHE_HITS.sum();
+        long total = hits + PATH_CACHE_MISSES.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-18s %10s %10s %10s %10s %10s %12s%n",
+                "Operation", "Count", "p50 us", "p90 us", "p99 us", "max us", "avg visited"));
+        for (Op op : OPS) {
+            Histogram latency = LATENCY[op.ordinal()];
+            Histogram visited = VISITED[op.ordinal()];
+            sb.append(String.format(Locale.ROOT, "%-18s %10d %10.1f %10.1f %10.1f %10.1f %12s%n",
+                    op.name(), COUNTS[op.ordinal()].sum(),
+                    latency.percentile(50) / 1000.0, latency.percentile(90) / 1000.0,
+                    latency.percentile(99) / 1000.0, latency.max() / 1000.0,
+                    visited.count() == 0 ? "-" : String.format(Locale.ROOT, "%.1f", visited.mean())));
+        }
+        sb.append(String.format(Locale.ROOT, "Path cache: %d hits, %d misses (%.1f%% hit rate)%n",
+                getPathCacheHits(), getPathCacheMisses(), 100 * getPathCacheHitRate()));
+        if (!ENABLED) {
+            sb.append("Metrics are disabled (-Dfollowgraph.metrics=false).").append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    public void reset() {
+        for (int i = 0; i < OPS.length; i++) {
+            COUNTS[i].reset();
+            LATENCY[i].reset();
+            VISITED[i].reset();
+        }
+        PATH_CACHE_HITS.reset();
+        PATH_CACHE_MISSES.reset();
+    }
+
+    /**
+     * A log-linear histogram of non-negative values. Values below 16 get their own bucket; above that
+     * each power of two is split into 16 buckets, so a value is reported within about 6% of itself.
+     */
+    private static final class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder total = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        /**
+         * Records a value.
+         */
+        private void record(long value) {
+            counts.incrementAndGet(bucketOf(Math.max(0, value)));
+            total.increment();
+            sum.add(value);
+        }
+
+        /**
+         * Records the same value a number of times.
+         */
+        private void record(long value, int times) {
+            counts.addAndGet(bucketOf(Math.max(0, value)), times);
+            total.add(times);
+            sum.add(value * times);
+        }
+
+        /**
+         * Finds the bucket of a value: the position of its highest bit picks the power of two, and the
+         * next SUB_BITS bits pick the bucket within it.
+         */
+        private static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+            int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+            return (shift + 1) * SUB_BUCKETS + sub;
+        }
+
+        /**
+         * Gets the largest value that falls into a bucket.
+         */
+        private static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKETS - 1;
+            long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+            return ((sub + 1) << shift) - 1;
+        }
+
+        /**
+         * Gets the number of recorded values.
+         */
+        private long count() {
+            return total.sum();
+        }
+
+        /**
+         * Gets the mean of the recorded values.
+         */
+        private double mean() {
+            long n = total.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        /**
+         * Gets the smallest bucket bound at or below which the given percentage of values fall.
+         */
+        private long percentile(double percentile) {
+            long n = total.sum();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += counts.get(b);
+                if (seen >= rank) {
+                    return upperBound(b);
+                }
+            }
+            return max();
+        }
+
+        /**
+         * Gets the upper bound of the highest non-empty bucket.
+         */
+        private long max() {
+            for (int b = BUCKETS - 1; b >= 0; b--) {
+                if (counts.get(b) > 0) {
+                    return upperBound(b);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Clears the histogram.
+         */
+        private void reset() {
+            for (int b = 0; b < BUCKETS; b++) {
+                counts.set(b, 0);
+            }
+            total.reset();
+            sum.reset();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Management interface through which GraphMetrics is published over JMX, for viewing in jconsole or
+ * any other JMX client under the name FollowGraph:type=GraphMetrics.
+ */
+public interface GraphMetricsMBean {
+    /**
+     * Gets whether metrics are being collected.
+     *
+     * @return true if metrics are enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Gets the names of the instrumented operations.
+     *
+     * @return the operation names
+     */
+    String[] getOperations();
+
+    /**
+     * Gets the total number of instrumented operations performed.
+     *
+     * @return the operation count
+     */
+    long getTotalOperations();
+
+    /**
+     * Gets the number of times an operation was performed.
+     *
+     * @param operation the operation name
+     * @return the count
+     */
+    long count(String operation);
+
+    /**
+     * Gets a latency percentile of an operation.
+     *
+     * @param operation  the operation name
+     * @param percentile the percentile, from 0 to 100
+     * @return the latency in microseconds
+     */
+    double latencyMicros(String operation, double percentile);
+
+    /**
+     * Gets the average number of users visited per call of a traversal.
+     *
+     * @param operation the operation name
+     * @return the mean number of users visited
+     */
+    double meanVisited(String operation);
+
+    /**
+     * Gets the number of path queries answered from a path query cache.
+     *
+     * @return the number of hits
+     */
+    long getPathCacheHits();
+
+    /**
+     * Gets the number of path queries a path query cache could not answer.
+     *
+     * @return the number of misses
+     */
+    long getPathCacheMisses();
+
+    /**
+     * Gets the share of path queries answered from a path query cache.
+     *
+     * @return the hit rate from 0 to 1
+     */
+    double getPathCacheHitRate();
+
+    /**
+     * Formats every metric as a table.
+     *
+     * @return the metrics report
+     */
+    String dump();
+
+    /**
+     * Clears every counter and histogram.
+     */
+    void reset();
+}
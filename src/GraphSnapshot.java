@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Compact binary snapshot of a follow graph.
+ * The file holds a header, a string table with every user name and ID, and the out-lists of every user
+ * in CSR order, each stored as a varint degree followed by varint gaps between sorted neighbors.
+ * The header also records how many write-ahead log records the snapshot already contains, so records
+ * left in the log by a crash between writing the snapshot and truncating the log are not replayed twice.
+ * Version 1 files, written before users had IDs, are still read; their users get IDs in index order.
+ * Version 1 and 2 files contain no log records.
+ * Snapshots are written through a FileChannel and read back through memory-mapped windows.
+ */
+public class GraphSnapshot {
+    /**
+     * Magic number at the start of every snapshot file ("FGS1")
+     */
+    public static final int MAGIC = 0x46475331;
+
+    /**
+     * Version of the snapshot layout written by this class
+     */
+    public static final int VERSION = 3;
+
+    /**
+     * Size of the write buffer and of each mapped read window
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long WINDOW_SIZE = 1L << 28;
+
+    private final List<String> names;          // User names in index order.
+    private final int[] ids;                   // User IDs in index order.
+    private final int nextId;                  // ID the graph gives its next new user.
+    private final SparseAdjacency adjacency;   // Connections between the users.
+    private final long logSequence;            // Sequence number of the first log record not contained.
+
+    /**
+     * Constructs a snapshot from its decoded parts.
+     *
+     * @param names       the user names in index order
+     * @param ids         the user IDs in index order
+     * @param nextId      the ID of the next user to be added
+     * @param adjacency   the connections between the users
+     * @param logSequence the sequence number of the first log record the snapshot does not contain
+     */
+    private GraphSnapshot(List<String> names, int[] ids, int nextId, SparseAdjacency adjacency, long logSequence) {
+        this.names = names;
+        this.ids = ids;
+        this.nextId = nextId;
+        this.adjacency = adjacency;
+        this.logSequence = logSequence;
+    }
+
+    /**
+     * Gets the user names stored in the snapshot, in index order.
+     *
+     * @return the user names
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Gets the user IDs stored in the snapshot, in index order.
+     *
+     * @return the user IDs
+     */
+    public int[] getIds() {
+        return ids;
+    }
+
+    /**
+     * Gets the ID the graph will give the next user added.
+     *
+     * @return the next ID
+     */
+    public int getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Gets the connections stored in the snapshot.
+     *
+     * @return the adjacency store
+     */
+    public SparseAdjacency getAdjacency() {
+        return adjacency;
+    }
+
+    /**
+     * Gets the sequence number of the first write-ahead log record the snapshot does not contain.
+     *
+     * @return the log sequence number, 0 for snapshots written before it was recorded
+     */
+    public long getLogSequence() {
+        return logSequence;
+    }
+
+    /**
+     * Writes a snapshot. The file is written next to the target and then moved over it,
+     * so a crash during the write never leaves a truncated snapshot behind.
+     *
+     * @param path        the file to write
+     * @param users       the users in index order; every slot must be filled
+     * @param nextId      the ID of the next user to be added
+     * @param adjacency   the connections between the users
+     * @param logSequence the sequence number of the first log record the snapshot does not contain
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, List<User> users, int nextId, SparseAdjacency adjacency,
+                             long logSequence) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(users.size());
+            buffer.putLong(adjacency.edgeCount());
+            buffer.putInt(nextId);
+            buffer.putLong(logSequence);
+
+            for (User user : users) {
+                byte[] bytes = user.getUserName().getBytes(StandardCharsets.UTF_8);
+                ensureSpace(channel, buffer, 10);
+                putVarint(buffer, user.getId());
+                putVarint(buffer, bytes.length);
+                int offset = 0;
+                while (offset < bytes.length) {
+                    ensureSpace(channel, buffer, 1);
+                    int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+                    buffer.put(bytes, offset, chunk);
+                    offset += chunk;
+                }
+            }
+
+            for (int v = 0; v < users.size(); v++) {
+                int[] neighbors = adjacency.outNeighbors(v);
+                int degree = adjacency.outDegree(v);
+                ensureSpace(channel, buffer, 5);
+                putVarint(buffer, degree);
+                int previous = 0;
+                for (int k = 0; k < degree; k++) {
+                    ensureSpace(channel, buffer, 5);
+                    putVarint(buffer, neighbors[k] - previous);
+                    previous = neighbors[k];
+                }
+            }
+            flush(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot.
+     *
+     * @param path the file to read
+     * @return the decoded snapshot
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static GraphSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedInput input = new MappedInput(channel);
+            if (input.getInt() != MAGIC) {
+                throw new IOException(path + " is not a FollowGraph snapshot.");
+            }
+            int version = input.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ".");
+            }
+            int count = input.getInt();
+            input.getLong();
+            int nextId = version == 1 ? count : input.getInt();
+            long logSequence = version < 3 ? 0 : input.getLong();
+            // Every user takes at least one byte, so a count larger than the file is corrupt.
+            if (count < 0 || count > input.remaining() || nextId < count) {
+                throw new IOException("Invalid user count in snapshot.");
+            }
+            if (logSequence < 0) {
+                throw new IOException("Invalid log sequence number in snapshot.");
+            }
+
+            List<String> names = new ArrayList<>(count);
+            int[] ids = new int[count];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < count; i++) {
+                ids[i] = version == 1 ? i : input.getVarint();
+                if (ids[i] < 0 || ids[i] >= nextId) {
+                    throw new IOException("Invalid user ID in snapshot.");
+                }
+                int length = input.getVarint();
+                if (length < 0 || length > input.remaining()) {
+                    throw new IOException("Invalid name length in snapshot.");
+                }
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                input.get(scratch, length);
+                names.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+            }
+            int[] sortedIds = ids.clone();
+            Arrays.sort(sortedIds);
+            for (int i = 1; i < count; i++) {
+                if (sortedIds[i] == sortedIds[i - 1]) {
+                    throw new IOException("Duplicate user ID in snapshot.");
+                }
+            }
+
+            int[][] outLists = new int[count][];
+            for (int v = 0; v < count; v++) {
+                int degree = input.getVarint();
+                if (degree < 0 || degree > count) {
+                    throw new IOException("Invalid degree in snapshot.");
+                }
+                int[] list = new int[degree];
+                int previous = 0;
+                for (int k = 0; k < degree; k++) {
+                    // Targets are strictly ascending, so every gap after the first is at least 1.
+                    int gap = input.getVarint();
+                    if (gap < (k == 0 ? 0 : 1) || gap >= count - previous) {
+                        throw new IOException("Invalid connection in snapshot.");
+                    }
+                    previous += gap;
+                    list[k] = previous;
+                }
+                outLists[v] = list;
+            }
+            return new GraphSnapshot(names, ids, nextId, SparseAdjacency.fromOutLists(outLists), logSequence);
+        }
+    }
+
+    /**
+     * Writes out the buffer when fewer than the requested bytes are left in it.
+     */
+    private static void ensureSpace(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Writes everything in the buffer to the channel and clears it.
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes a non-negative int using 7 bits per byte.
+     */
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Sequential reader over a file that maps one window at a time,
+     * so files larger than a single mapping can be read.
+     */
+    private static class MappedInput {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedInput(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            map(0);
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+        }
+
+        private void require(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                long position = windowStart + window.position();
+                if (size - position < bytes) {
+                    throw new IOException("Snapshot is truncated.");
+                }
+                map(position);
+            }
+        }
+
+        long remaining() {
+            return size - windowStart - window.position();
+        }
+
+        int getInt() throws IOException {
+            require(4);
+            return window.getInt();
+        }
+
+        long getLong() throws IOException {
+            require(8);
+            return window.getLong();
+        }
+
+        int getVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                require(1);
+                byte b = window.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in snapshot.");
+        }
+
+        void get(byte[] dst, int length) throws IOException {
+            int offset = 0;
+            while (offset < length) {
+                require(1);
+                int chunk = Math.min(window.remaining(), length - offset);
+                window.get(dst, offset, chunk);
+                offset += chunk;
+            }
+        }
+    }
+}
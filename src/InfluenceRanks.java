@@ -0,0 +1,203 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * PageRank and HITS hub and authority scores of every user, a better influence signal than raw
+ * follower counts since a follow from an influential user counts for more.
+ * Both are computed by power iteration over primitive double arrays. Each iteration pulls from the
+ * followers of every user, so users can be updated independently and are spread over all cores.
+ * Iteration stops once the scores change by less than the tolerance or the iteration limit is reached.
+ */
+public class InfluenceRanks {
+    /**
+     * Probability of following a connection rather than jumping to a random user
+     */
+    public static final double DAMPING = 0.85;
+
+    /**
+     * Total change in scores below which an iteration is considered converged
+     */
+    public static final double TOLERANCE = 1e-10;
+
+    /**
+     * Largest number of iterations run for each score
+     */
+    public static final int MAX_ITERATIONS = 100;
+
+    private final double[] pageRank;
+    private final double[] hub;
+    private final double[] authority;
+    private int pageRankIterations;
+    private int hitsIterations;
+
+    /**
+     * Computes the scores of the live vertices of an adjacency store. Vertices that are not live keep
+     * every score at 0 and have no connections.
+     *
+     * @param adjacency   the adjacency store
+     * @param vertexCount the number of vertex slots to score
+     * @param live        whether each slot holds a user
+     */
+    public InfluenceRanks(SparseAdjacency adjacency, int vertexCount, boolean[] live) {
+        pageRank = new double[vertexCount];
+        hub = new double[vertexCount];
+        authority = new double[vertexCount];
+        int n = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            if (live[v]) {
+                n++;
+            }
+        }
+        if (n > 0) {
+            computePageRank(adjacency, vertexCount, live, n);
+            computeHits(adjacency, vertexCount, live);
+        }
+    }
+
+    /**
+     * Runs PageRank. The rank of users who follow nobody is spread evenly over every user.
+     */
+    private void computePageRank(SparseAdjacency adjacency, int vertexCount, boolean[] live, int n) {
+        double[] rank = pageRank;
+        double[] share = new double[vertexCount];   // Rank each vertex passes to each user it follows.
+        double[] next = new double[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            rank[v] = live[v] ? 1.0 / n : 0;
+        }
+        for (int iteration = 1; iteration <= MAX_ITERATIONS; iteration++) {
+            double[] current = rank;
+            double dangling = IntStream.range(0, vertexCount).parallel().mapToDouble(v -> {
+                int degree = adjacency.outDegree(v);
+                share[v] = degree == 0 ? 0 : current[v] / degree;
+                return live[v] && degree == 0 ? current[v] : 0;
+            }).sum();
+            double base = (1 - DAMPING) / n + DAMPING * dangling / n;
+            double[] target = next;
+            double change = IntStream.range(0, vertexCount).parallel().mapToDouble(v -> {
+                if (!live[v]) {
+                    return 0;
+                }
+                int[] followers = adjacency.inNeighbors(v);
+                double sum = 0;
+                for (int k = 0; k < adjacency.inDegree(v); k++) {
+                    sum += share[followers[k]];
+                }
+                target[v] = base + DAMPING * sum;
+                return Math.abs(target[v] - current[v]);
+            }).sum();
+            next = rank;
+            rank = target;
+            pageRankIterations = iteration;
+            if (change < TOLERANCE) {
+                break;
+            }
+        }
+        if (rank != pageRank) {
+            System.arraycopy(rank, 0, pageRank, 0, vertexCount);
+        }
+    }
+
+    /**
+     * Runs HITS. A user's authority is the sum of the hub scores of their followers, and a user's hub
+     * score is the sum of the authority of the users they follow, each normalized to unit length.
+     */
+    private void computeHits(SparseAdjacency adjacency, int vertexCount, boolean[] live) {
+        double[] nextHub = new double[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            hub[v] = live[v] ? 1 : 0;
+        }
+        normalize(hub);
+        for (int iteration = 1; iteration <= MAX_ITERATIONS; iteration++) {
+            IntStream.range(0, vertexCount).parallel().forEach(v -> {
+                int[] followers = adjacency.inNeighbors(v);
+                double sum = 0;
+                for (int k = 0; k < adjacency.inDegree(v); k++) {
+                    sum += hub[followers[k]];
+                }
+                authority[v] = sum;
+            });
+            normalize(authority);
+            IntStream.range(0, vertexCount).parallel().forEach(v -> {
+                int[] following = adjacency.outNeighbors(v);
+                double sum = 0;
+                for (int k = 0; k < adjacency.outDegree(v); k++) {
+                    sum += authority[following[k]];
+                }
+                nextHub[v] = sum;
+            });
+            normalize(nextHub);
+            double change = IntStream.range(0, vertexCount).parallel()
+                    .mapToDouble(v -> Math.abs(nextHub[v] - hub[v])).sum();
+            System.arraycopy(nextHub, 0, hub, 0, vertexCount);
+            hitsIterations = iteration;
+            if (change < TOLERANCE) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Scales a vector to unit length, leaving an all-zero vector alone.
+     */
+    private static void normalize(double[] values) {
+        double norm = Math.sqrt(Arrays.stream(values).parallel().map(x -> x * x).sum());
+        if (norm > 0) {
+            for (int v = 0; v < values.length; v++) {
+                values[v] /= norm;
+            }
+        }
+    }
+
+    /**
+     * Gets the PageRank of a user. The ranks of all users add up to 1.
+     *
+     * @param v the index position of the user
+     * @return the PageRank
+     */
+    public double pageRank(int v) {
+        return v < pageRank.length ? pageRank[v] : 0;
+    }
+
+    /**
+     * Gets the HITS hub score of a user, high for users who follow many authorities.
+     *
+     * @param v the index position of the user
+     * @return the hub score
+     */
+    public double hub(int v) {
+        return v < hub.length ? hub[v] : 0;
+    }
+
+    /**
+     * Gets the HITS authority score of a user, high for users followed by many hubs.
+     *
+     * @param v the index position of the user
+     * @return the authority score
+     */
+    public double authority(int v) {
+        return v < authority.length ? authority[v] : 0;
+    }
+
+    /**
+     * Gets the number of PageRank iterations that were run.
+     *
+     * @return the iteration count
+     */
+    public int pageRankIterations() {
+        return pageRankIterations;
+    }
+
+    /**
+     * Gets the number of HITS iterations that were run.
+     *
+     * @return the iteration count
+     */
+    public int hitsIterations() {
+        return hitsIterations;
+    }
+}
@@ -0,0 +1,363 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Append-only write-ahead log of graph mutations.
+ * Each record is a length, a CRC32 of the payload, an operation code and one or two user names.
+ * Records are buffered and fsynced in groups: a group is committed once it holds enough records,
+ * or by a background flusher once its oldest record has waited long enough, so a crash loses at most
+ * the records appended within the last commit delay.
+ * On replay a torn or corrupt tail is cut off and everything before it is applied.
+ * Records are numbered by a sequence that keeps counting across truncations. The file starts with the
+ * sequence number of its first record, and a snapshot records the first sequence number it does not
+ * contain, so replay can skip the records a snapshot already holds. Files written before the header
+ * existed start directly with a record and are numbered from 0.
+ */
+public final class MutationLog {
+    public static final byte ADD_USER = 1;
+    public static final byte ADD_CONNECTION = 2;
+    public static final byte REMOVE_USER = 3;
+    public static final byte REMOVE_CONNECTION = 4;
+
+    /**
+     * Default number of records committed together
+     */
+    public static final int DEFAULT_GROUP_SIZE = 64;
+
+    /**
+     * Default longest time in milliseconds a record waits before its group is committed
+     */
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 50;
+
+    /**
+     * Magic number at the start of every log file ("FGL1")
+     */
+    public static final int MAGIC = 0x46474C31;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int FILE_HEADER_BYTES = 12;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int groupSize;
+    private final long maxDelayNanos;
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService flusher;
+    private ByteBuffer buffer;       // Records appended but not yet written.
+    private int pending;             // Number of records in the buffer.
+    private long pendingSince;       // Time the oldest buffered record was appended.
+    private long records;            // Records in the log since the last truncation.
+    private long firstSequence;      // Sequence number of the first record in the file.
+    private int start;               // Offset of the first record, 0 in files without a header.
+
+    /**
+     * Opens a log with the default group commit settings, creating the file if needed.
+     *
+     * @param path the log file
+     * @throws IOException if the file cannot be opened
+     */
+    public MutationLog(Path path) throws IOException {
+        this(path, DEFAULT_GROUP_SIZE, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * Opens a log, creating the file if needed.
+     *
+     * @param path           the log file
+     * @param groupSize      the number of records committed with one fsync
+     * @param maxDelayMillis the longest time a record may wait before its group is committed
+     * @throws IOException if the file cannot be opened
+     */
+    public MutationLog(Path path, int groupSize, long maxDelayMillis) throws IOException {
+        this.path = path;
+        this.groupSize = Math.max(1, groupSize);
+        this.maxDelayNanos = maxDelayMillis * 1_000_000L;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocate(1 << 16);
+        readHeader();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mutation-log-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, maxDelayMillis);
+        flusher.scheduleAtFixedRate(this::flushIfDue, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads the sequence number at the start of the file, writing a header first if the file is empty.
+     */
+    private void readHeader() throws IOException {
+        if (channel.size() == 0) {
+            writeHeader(0);
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                break;
+            }
+        }
+        if (header.position() == FILE_HEADER_BYTES && header.getInt(0) == MAGIC) {
+            firstSequence = header.getLong(4);
+            start = FILE_HEADER_BYTES;
+        }
+        channel.position(start);
+    }
+
+    /**
+     * Empties the file and starts it with a header giving the sequence number of its first record.
+     */
+    private void writeHeader(long sequence) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        header.putInt(MAGIC).putLong(sequence).flip();
+        channel.position(0);
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+        firstSequence = sequence;
+        start = FILE_HEADER_BYTES;
+    }
+
+    /**
+     * Commits the buffered group if its oldest record has waited past the commit delay.
+     */
+    private synchronized void flushIfDue() {
+        if (pending > 0 && channel.isOpen() && System.nanoTime() - pendingSince >= maxDelayNanos) {
+            try {
+                sync();
+            } catch (IOException e) {
+                System.err.println("Error writing the log: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Gets the number of records written since the log was last truncated.
+     *
+     * @return the record count
+     */
+    public synchronized long size() {
+        return records;
+    }
+
+    /**
+     * Gets the sequence number the next appended record will get.
+     *
+     * @return the sequence number after the last record
+     */
+    public synchronized long nextSequence() {
+        return firstSequence + records;
+    }
+
+    /**
+     * Applies every intact record in the log to the graph, except those numbered before the given
+     * sequence number, then positions the log for appending right after the last intact record.
+     * The graph must not have this log attached while replaying.
+     *
+     * @param graph     the graph to apply the records to
+     * @param skipUntil the first sequence number to apply; earlier records are already in the graph
+     * @return the number of records applied
+     * @throws IOException if the log cannot be read
+     */
+    public synchronized long replay(FollowGraph graph, long skipUntil) throws IOException {
+        long valid = start;
+        long sequence = firstSequence;
+        long applied = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 20))) {
+            in.skipNBytes(start);
+            byte[] payload = new byte[256];
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > (1 << 24)) {
+                        break;
+                    }
+                    if (length > payload.length) {
+                        payload = new byte[length];
+                    }
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                if (sequence >= skipUntil) {
+                    apply(graph, ByteBuffer.wrap(payload, 0, length));
+                    applied++;
+                }
+                valid += HEADER_BYTES + length;
+                sequence++;
+            }
+        }
+        channel.truncate(valid);
+        channel.position(valid);
+        records = sequence - firstSequence;
+        return applied;
+    }
+
+    /**
+     * Decodes one record and applies it through the graph's public methods.
+     */
+    private static void apply(FollowGraph graph, ByteBuffer record) {
+        byte op = record.get();
+        String first = readName(record);
+        switch (op) {
+            case ADD_USER:
+                graph.addUser(first);
+                break;
+            case REMOVE_USER:
+                graph.removeUser(first);
+                break;
+            case ADD_CONNECTION:
+                graph.addConnections(first, readName(record));
+                break;
+            case REMOVE_CONNECTION:
+                graph.removeConnection(first, readName(record));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Appends a record. It is committed to disk together with the rest of its group.
+     *
+     * @param op     the operation code
+     * @param first  the user the operation applies to, or the source of a connection
+     * @param second the target of a connection, or null for user operations
+     * @throws IOException if the log cannot be written
+     */
+    public synchronized void append(byte op, String first, String second) throws IOException {
+        byte[] a = first.getBytes(StandardCharsets.UTF_8);
+        byte[] b = second == null ? null : second.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 5 + a.length + (b == null ? 0 : 5 + b.length);
+        if (buffer.remaining() < HEADER_BYTES + length) {
+            write();
+            if (buffer.capacity() < HEADER_BYTES + length) {
+                buffer = ByteBuffer.allocate(HEADER_BYTES + length);
+            }
+        }
+        int start = buffer.position();
+        buffer.position(start + HEADER_BYTES);
+        buffer.put(op);
+        putName(buffer, a);
+        if (b != null) {
+            putName(buffer, b);
+        }
+        int payloadLength = buffer.position() - start - HEADER_BYTES;
+        crc.reset();
+        crc.update(buffer.array(), start + HEADER_BYTES, payloadLength);
+        buffer.putInt(start, payloadLength);
+        buffer.putInt(start + 4, (int) crc.getValue());
+
+        if (pending == 0) {
+            pendingSince = System.nanoTime();
+        }
+        pending++;
+        records++;
+        if (pending >= groupSize || System.nanoTime() - pendingSince >= maxDelayNanos) {
+            sync();
+        }
+    }
+
+    /**
+     * Writes every buffered record and forces it to disk.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    public synchronized void sync() throws IOException {
+        if (pending == 0 && buffer.position() == 0) {
+            return;
+        }
+        write();
+        channel.force(false);
+        pending = 0;
+    }
+
+    /**
+     * Discards every record, normally right after a checkpoint has been written, and numbers the
+     * next record from the given sequence number.
+     *
+     * @param sequence the sequence number of the next record, at least nextSequence()
+     * @throws IOException if the log cannot be truncated
+     */
+    public synchronized void truncate(long sequence) throws IOException {
+        buffer.clear();
+        pending = 0;
+        records = 0;
+        writeHeader(sequence);
+    }
+
+    /**
+     * Commits any buffered records and closes the log.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    public synchronized void close() throws IOException {
+        flusher.shutdown();
+        sync();
+        channel.close();
+    }
+
+    /**
+     * Writes the buffered bytes to the file without forcing them to disk.
+     */
+    private void write() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void putName(ByteBuffer buffer, byte[] name) {
+        int value = name.length;
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+        buffer.put(name);
+    }
+
+    private static String readName(ByteBuffer record) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = record.get();
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        String name = new String(record.array(), record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return name;
+    }
+}
@@ -0,0 +1,163 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Lazily enumerates the simple paths between two vertices as arrays of vertex indices.
+ * The search is an iterative depth-first search that stops after each path it finds, so only the
+ * paths actually consumed are ever produced. The enumeration can be bounded by path length and by
+ * number of results, and can be cancelled from outside, for example when a deadline passes.
+ * The graph must not be modified while an enumerator is in use.
+ */
+public class PathEnumerator implements Iterator<int[]> {
+    /**
+     * Value for maxLength and maxResults meaning no limit
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /**
+     * Number of search steps between two checks of the cancellation hook
+     */
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+    private final SparseAdjacency adjacency;
+    private final int target;
+    private final int maxLength;
+    private final long maxResults;
+    private final BooleanSupplier cancelled;
+    private final int[] stack;       // Vertices on the current path.
+    private final int[] cursor;      // Next neighbor to try at each depth.
+    private final boolean[] onPath;  // Whether a vertex is on the current path.
+    private int depth;               // Index of the last vertex on the current path, or -1 when done.
+    private long produced;           // Number of paths returned so far.
+    private int steps;               // Search steps since the last cancellation check.
+    private long visited;            // Vertices pushed onto the path so far.
+    private boolean wasCancelled;
+    private int[] nextPath;          // Path found but not yet returned.
+
+    /**
+     * Constructs an enumerator over all simple paths from source to target.
+     *
+     * @param adjacency  the adjacency store to search
+     * @param source     the source vertex
+     * @param target     the target vertex
+     * @param maxLength  the largest number of connections on a returned path, or UNLIMITED
+     * @param maxResults the largest number of paths to return, or UNLIMITED
+     * @param cancelled  a hook checked during the search; the enumeration ends once it returns true.
+     *                   May be null
+     */
+    public PathEnumerator(SparseAdjacency adjacency, int source, int target, int maxLength, long maxResults,
+                          BooleanSupplier cancelled) {
+        this.adjacency = adjacency;
+        this.target = target;
+        this.maxLength = maxLength;
+        this.maxResults = maxResults;
+        this.cancelled = cancelled;
+        int capacity = adjacency.capacity();
+        stack = new int[capacity + 1];
+        cursor = new int[capacity + 1];
+        onPath = new boolean[capacity];
+        if (source == target) {
+            nextPath = maxResults > 0 ? new int[]{source} : null;
+            depth = -1;
+        } else {
+            stack[0] = source;
+            onPath[source] = true;
+            depth = 0;
+            visited = 1;
+        }
+    }
+
+    /**
+     * Checks whether the enumeration ended because the cancellation hook fired.
+     *
+     * @return true if the enumeration was cancelled
+     */
+    public boolean wasCancelled() {
+        return wasCancelled;
+    }
+
+    /**
+     * Gets the number of times a user has been added to the current path so far. A user reached along
+     * several paths is counted once per path, so this measures the work done by the search.
+     *
+     * @return the number of users visited
+     */
+    public long visited() {
+        return visited;
+    }
+
+    /**
+     * Checks whether there is another path, searching for it if necessary.
+     *
+     * @return true if another path is available
+     */
+    public boolean hasNext() {
+        if (nextPath == null && produced < maxResults) {
+            nextPath = advance();
+        }
+        return nextPath != null;
+    }
+
+    /**
+     * Gets the next path.
+     *
+     * @return the vertex indices of the next path, from source to target
+     * @throws NoSuchElementException if there are no more paths
+     */
+    public int[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int[] path = nextPath;
+        nextPath = null;
+        produced++;
+        return path;
+    }
+
+    /**
+     * Runs the depth-first search until the next path is found.
+     *
+     * @return the next path, or null if the search is exhausted or cancelled
+     */
+    private int[] advance() {
+        while (depth >= 0) {
+            if (cancelled != null && ++steps >= CANCEL_CHECK_INTERVAL) {
+                steps = 0;
+                if (cancelled.getAsBoolean()) {
+                    wasCancelled = true;
+                    depth = -1;
+                    return null;
+                }
+            }
+            int v = stack[depth];
+            if (depth < maxLength && cursor[depth] < adjacency.outDegree(v)) {
+                int w = adjacency.outNeighbors(v)[cursor[depth]++];
+                if (onPath[w]) {
+                    continue;
+                }
+                if (w == target) {
+                    int[] path = new int[depth + 2];
+                    System.arraycopy(stack, 0, path, 0, depth + 1);
+                    path[depth + 1] = w;
+                    return path;
+                }
+                depth++;
+                stack[depth] = w;
+                cursor[depth] = 0;
+                onPath[w] = true;
+                visited++;
+            } else {
+                onPath[v] = false;
+                cursor[depth] = 0;
+                depth--;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,306 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Bounded least-recently-used cache of path query results, keyed by the kind of query and the index
+ * positions of its two users. Results are stored as index arrays, so a hit skips the search but still
+ * renders fresh names.
+ * Every entry is tagged with the graph version it was computed at and is only returned while the graph
+ * is still at that version, so any mutation invalidates the whole cache at once without touching it;
+ * the first store at a newer version clears the stale entries out. The cache is split into segments,
+ * each with its own lock, so concurrent readers rarely contend.
+ */
+public class PathQueryCache {
+    /**
+     * The kinds of cached query
+     */
+    public enum Query {
+        SHORTEST_PATH, BIDIRECTIONAL_PATH, ALL_PATHS
+    }
+
+    /**
+     * Cached value standing for a search that found no path
+     */
+    public static final int[] NO_PATH = new int[0];
+
+    /**
+     * Largest number of indices a single allPaths result may hold and still be cached
+     */
+    public static final int MAX_ENTRY_SIZE = 1 << 16;
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int capacity;
+    private volatile long version;  // Newest graph version stored; older entries are being cleared.
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param capacity the largest number of results held
+     */
+    public PathQueryCache(int capacity) {
+        this.capacity = capacity;
+        int perSegment = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Gets the largest number of results the cache holds.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Looks up a cached path.
+     *
+     * @param query   SHORTEST_PATH or BIDIRECTIONAL_PATH
+     * @param from    the index position of the starting user
+     * @param to      the index position of the target user
+     * @param version the current graph version
+     * @return the path, NO_PATH if the search found none, or null on a miss
+     */
+    public int[] getPath(Query query, int from, int to, long version) {
+        return (int[]) get(query, from, to, version);
+    }
+
+    /**
+     * Looks up cached paths.
+     *
+     * @param from    the index position of the starting user
+     * @param to      the index position of the target user
+     * @param version the current graph version
+     * @return the paths in the order they are listed, or null on a miss
+     */
+    public int[][] getPaths(int from, int to, long version) {
+        return (int[][]) get(Query.ALL_PATHS, from, to, version);
+    }
+
+    /**
+     * Stores a path. The array must not be changed afterwards.
+     *
+     * @param query   SHORTEST_PATH or BIDIRECTIONAL_PATH
+     * @param from    the index position of the starting user
+     * @param to      the index position of the target user
+     * @param version the graph version read before the search started
+     * @param path    the path, or NO_PATH
+     */
+    public void putPath(Query query, int from, int to, long version, int[] path) {
+        put(query, from, to, version, path);
+    }
+
+    /**
+     * Stores a list of paths unless it is too large to be worth holding. The arrays must not be changed
+     * afterwards.
+     *
+     * @param from    the index position of the starting user
+     * @param to      the index position of the target user
+     * @param version the graph version read before the search started
+     * @param paths   the paths in the order they are listed
+     */
+    public void putPaths(int from, int to, long version, int[][] paths) {
+        long size = 0;
+        for (int[] path : paths) {
+            size += path.length;
+        }
+        if (size <= MAX_ENTRY_SIZE) {
+            put(Query.ALL_PATHS, from, to, version, paths);
+        }
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups the cache could not answer.
+     *
+     * @return the number of misses
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the share of lookups answered from the cache.
+     *
+     * @return the hit rate from 0 to 1, or 0 before the first lookup
+     */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Gets the number of results held, including ones made stale by a mutation but not cleared yet.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Describes the cache for display.
+     *
+     * @return the size, capacity and hit rate
+     */
+    public String toString() {
+        return String.format("Path cache: %d of %d entries, %d hits, %d misses (%.1f%% hit rate)",
+                size(), capacity, hits(), misses(), 100 * hitRate());
+    }
+
+    /**
+     * Looks up an entry and counts the hit or miss.
+     */
+    private Object get(Query query, int from, int to, long version) {
+        Key key = new Key(query, from, to);
+        Segment segment = segmentOf(key);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+        }
+        boolean hit = entry != null && entry.version == version;
+        if (hit) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        GraphMetrics.recordPathCache(hit);
+        return hit ? entry.value : null;
+    }
+
+    /**
+     * Stores an entry, first clearing the cache if this is the first entry of a newer version.
+     */
+    private void put(Query query, int from, int to, long version, Object value) {
+        if (version < this.version) {
+            return;
+        }
+        if (version > this.version) {
+            synchronized (this) {
+                if (version > this.version) {
+                    clear();
+                    this.version = version;
+                }
+            }
+        }
+        Key key = new Key(query, from, to);
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            segment.put(key, new Entry(version, value));
+        }
+    }
+
+    /**
+     * Picks the segment holding a key.
+     */
+    private Segment segmentOf(Key key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * The kind of query and its two users.
+     */
+    private static final class Key {
+        private final Query query;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a key.
+         */
+        private Key(Query query, int from, int to) {
+            this.query = query;
+            this.from = from;
+            this.to = to;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return k.from == from && k.to == to && k.query == query;
+        }
+
+        public int hashCode() {
+            return (from * 31 + to) * 31 + query.ordinal();
+        }
+    }
+
+    /**
+     * A cached result and the graph version it was computed at.
+     */
+    private static final class Entry {
+        private final long version;
+        private final Object value;
+
+        /**
+         * Constructs an entry.
+         */
+        private Entry(long version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
+    /**
+     * One lock-protected part of the cache, evicting its least recently used entry when full.
+     */
+    private static final class Segment extends LinkedHashMap<Key, Entry> {
+        private static final long serialVersionUID = 1L;
+        private final int limit;
+
+        /**
+         * Constructs an empty segment.
+         *
+         * @param limit the largest number of entries held
+         */
+        private Segment(int limit) {
+            super(16, 0.75f, true);
+            this.limit = limit;
+        }
+
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > limit;
+        }
+    }
+}
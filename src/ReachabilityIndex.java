@@ -0,0 +1,276 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Answers "can user A reach user B" questions over the condensation of a follow graph.
+ * Users in the same strongly connected component always reach each other, so only components matter.
+ * When there are few enough components the full transitive closure is stored as one bitset per
+ * component and every query is a single bit test. Larger graphs get GRAIL interval labels instead:
+ * each component is labelled with the post-order interval of a few randomized depth-first traversals,
+ * and a target whose interval is not nested inside the source's in every traversal is unreachable.
+ * Only queries that pass that test fall back to a depth-first search, pruned by the same labels.
+ * The index is immutable and may be queried from many threads at once.
+ */
+public class ReachabilityIndex {
+    /**
+     * Largest number of components for which the transitive closure is stored, about 8 MB of bitsets
+     */
+    public static final int CLOSURE_LIMIT = 8192;
+
+    /**
+     * Number of randomized traversals used for interval labels
+     */
+    private static final int LABEL_TRAVERSALS = 3;
+
+    private final StronglyConnectedComponents components;
+    private final CondensationDag condensation;
+    private final long[][] closure;  // Reachable components of each component, or null when labelled.
+    private final int[][] low;       // Smallest post-order number below each component, per traversal.
+    private final int[][] post;      // Post-order number of each component, per traversal.
+    private final long buildNanos;
+
+    /**
+     * Visit stamps for the fallback search, one array per thread; the last slot holds the current stamp
+     */
+    private final ThreadLocal<int[]> visitStamps;
+
+    /**
+     * Builds the index, choosing the closure or the interval labels by the number of components.
+     *
+     * @param components   the strongly connected components of the graph
+     * @param condensation the condensation of the graph
+     */
+    public ReachabilityIndex(StronglyConnectedComponents components, CondensationDag condensation) {
+        long start = System.nanoTime();
+        this.components = components;
+        this.condensation = condensation;
+        int count = condensation.componentCount();
+        if (count <= CLOSURE_LIMIT) {
+            closure = buildClosure(condensation);
+            low = post = null;
+            visitStamps = null;
+        } else {
+            closure = null;
+            low = new int[LABEL_TRAVERSALS][];
+            post = new int[LABEL_TRAVERSALS][];
+            Random random = new Random(count);
+            for (int t = 0; t < LABEL_TRAVERSALS; t++) {
+                low[t] = new int[count];
+                post[t] = new int[count];
+                label(condensation, random, low[t], post[t]);
+            }
+            visitStamps = ThreadLocal.withInitial(() -> new int[count + 1]);
+        }
+        buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Computes the transitive closure of the condensation. Successors always have lower ids, so
+     * visiting components in increasing order finds every successor's row already complete.
+     */
+    private static long[][] buildClosure(CondensationDag condensation) {
+        int count = condensation.componentCount();
+        long[][] rows = new long[count][];
+        for (int c = 0; c < count; c++) {
+            // A component only reaches lower ids, so its row never needs words past its own.
+            long[] row = new long[(c >> 6) + 1];
+            row[c >> 6] |= 1L << c;
+            for (int i = 0; i < condensation.successorCount(c); i++) {
+                long[] next = rows[condensation.successor(c, i)];
+                for (int w = 0; w < next.length; w++) {
+                    row[w] |= next[w];
+                }
+            }
+            rows[c] = row;
+        }
+        return rows;
+    }
+
+    /**
+     * Assigns interval labels from one randomized depth-first traversal of the condensation.
+     * Each component gets its post-order number and the smallest post-order number of anything it
+     * reaches, so anything reachable has its interval nested inside.
+     */
+    private static void label(CondensationDag condensation, Random random, int[] low, int[] post) {
+        int count = condensation.componentCount();
+        boolean[] hasPredecessor = new boolean[count];
+        for (int c = 0; c < count; c++) {
+            for (int i = 0; i < condensation.successorCount(c); i++) {
+                hasPredecessor[condensation.successor(c, i)] = true;
+            }
+        }
+        boolean[] visited = new boolean[count];
+        int[] stack = new int[count];
+        int[] cursor = new int[count];
+        int[] rotation = new int[count];
+        int order = 0;
+        int offset = random.nextInt(count);
+        for (int r = 0; r < count; r++) {
+            int root = (r + offset) % count;
+            if (hasPredecessor[root] || visited[root]) {
+                continue;
+            }
+            int depth = 0;
+            stack[0] = root;
+            cursor[0] = 0;
+            visited[root] = true;
+            low[root] = Integer.MAX_VALUE;
+            int degree = condensation.successorCount(root);
+            rotation[0] = degree == 0 ? 0 : random.nextInt(degree);
+            while (depth >= 0) {
+                int c = stack[depth];
+                degree = condensation.successorCount(c);
+                if (cursor[depth] < degree) {
+                    int d = condensation.successor(c, (cursor[depth]++ + rotation[depth]) % degree);
+                    if (visited[d]) {
+                        low[c] = Math.min(low[c], low[d]);
+                        continue;
+                    }
+                    visited[d] = true;
+                    low[d] = Integer.MAX_VALUE;
+                    depth++;
+                    stack[depth] = d;
+                    cursor[depth] = 0;
+                    int childDegree = condensation.successorCount(d);
+                    rotation[depth] = childDegree == 0 ? 0 : random.nextInt(childDegree);
+                } else {
+                    post[c] = order++;
+                    low[c] = Math.min(low[c], post[c]);
+                    depth--;
+                    if (depth >= 0) {
+                        int parent = stack[depth];
+                        low[parent] = Math.min(low[parent], low[c]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether one user can reach another by following connections. A user always reaches
+     * themselves.
+     *
+     * @param from the index position of the starting user
+     * @param to   the index position of the target user
+     * @return true if there is a path from one user to the other
+     */
+    public boolean canReach(int from, int to) {
+        return componentsReach(components.componentOf(from), components.componentOf(to));
+    }
+
+    /**
+     * Checks whether one component can reach another.
+     *
+     * @param from the starting component id
+     * @param to   the target component id
+     * @return true if there is a path from one component to the other
+     */
+    private boolean componentsReach(int from, int to) {
+        if (from == to) {
+            return true;
+        }
+        if (from < to) {
+            return false;
+        }
+        if (closure != null) {
+            return (closure[from][to >> 6] & (1L << to)) != 0;
+        }
+        if (!contains(from, to)) {
+            return false;
+        }
+        int[] stamps = visitStamps.get();
+        int last = stamps.length - 1;
+        int stamp = ++stamps[last];
+        if (stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = stamps[last] = 1;
+        }
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = from;
+        stamps[from] = stamp;
+        while (top > 0) {
+            int c = stack[--top];
+            for (int i = 0; i < condensation.successorCount(c); i++) {
+                int d = condensation.successor(c, i);
+                if (d == to) {
+                    return true;
+                }
+                if (d < to || stamps[d] == stamp || !contains(d, to)) {
+                    continue;
+                }
+                stamps[d] = stamp;
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = d;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the labels of one component are nested inside those of another in every traversal,
+     * which is necessary for the first to reach the second.
+     */
+    private boolean contains(int outer, int inner) {
+        for (int t = 0; t < LABEL_TRAVERSALS; t++) {
+            if (low[t][inner] < low[t][outer] || post[t][inner] > post[t][outer]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the index stores the full transitive closure rather than interval labels.
+     *
+     * @return true if every query is a single bit test
+     */
+    public boolean isClosure() {
+        return closure != null;
+    }
+
+    /**
+     * Gets the time it took to build the index, not counting the components and condensation.
+     *
+     * @return the build time in milliseconds
+     */
+    public double buildMillis() {
+        return buildNanos / 1e6;
+    }
+
+    /**
+     * Estimates the memory held by the index itself, not counting the components and condensation.
+     *
+     * @return the approximate size in bytes
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        if (closure != null) {
+            for (long[] row : closure) {
+                bytes += 16 + 8L * row.length;
+            }
+        } else {
+            bytes = 2L * LABEL_TRAVERSALS * (16 + 4L * condensation.componentCount());
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns a one-line summary of the index for reports.
+     *
+     * @return the index type, component count, build time and memory
+     */
+    @Override
+    public String toString() {
+        return String.format("%s over %d components, built in %.2f ms, %d KB",
+                isClosure() ? "Transitive closure" : "Interval labels",
+                condensation.componentCount(), buildMillis(), (memoryBytes() + 1023) / 1024);
+    }
+}
@@ -0,0 +1,245 @@
+import java.util.Arrays;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * "People you may know" recommendations over a SparseAdjacency store.
+ * Candidates are users two connections away who are not already followed, scored by one of several
+ * metrics, and only the best K are kept in a bounded heap instead of sorting every candidate.
+ * Scores, marks and the heap live in scratch buffers kept between calls and reset with visit stamps,
+ * so a recommender should be reused rather than created per query. A recommender is not thread-safe.
+ */
+public class Recommender {
+    /**
+     * The ways candidates can be scored
+     */
+    public enum Metric {
+        /**
+         * Number of users the user follows who follow the candidate
+         */
+        FRIENDS_OF_FRIENDS,
+        /**
+         * Number of users who follow both the user and the candidate
+         */
+        COMMON_FOLLOWERS,
+        /**
+         * Friends of friends, each weighted by one over the log of the middle user's number of connections,
+         * so that going through a less connected user counts for more
+         */
+        ADAMIC_ADAR,
+        /**
+         * Common followers divided by the number of users following either the user or the candidate
+         */
+        JACCARD
+    }
+
+    private int[] mark;        // Equal to stamp once a vertex has been seen as a candidate or excluded.
+    private double[] score;    // Score of each candidate in the current query.
+    private int[] candidates;  // Candidates touched by the current query.
+    private int[] heapVertex;  // Min-heap of the best candidates so far.
+    private double[] heapScore;
+    private int stamp;
+    private double[] lastScores = new double[0];
+
+    /**
+     * Constructs a recommender with empty scratch buffers.
+     */
+    public Recommender() {
+        mark = new int[0];
+        score = new double[0];
+        candidates = new int[0];
+        heapVertex = new int[0];
+        heapScore = new double[0];
+    }
+
+    /**
+     * Gets the scores of the users returned by the most recent call to recommend.
+     *
+     * @return the scores, in the same order as the recommended users
+     */
+    public double[] lastScores() {
+        return lastScores.clone();
+    }
+
+    /**
+     * Finds the best users for a user to follow.
+     * Ties are broken in favor of the lower index position, so results are deterministic.
+     *
+     * @param adj    the adjacency store to search
+     * @param user   the user to recommend for
+     * @param metric how candidates are scored
+     * @param k      the largest number of users to return
+     * @return the recommended users, best first, or an empty array if k is 0 or less
+     */
+    public int[] recommend(SparseAdjacency adj, int user, Metric metric, int k) {
+        if (k <= 0) {
+            lastScores = new double[0];
+            return new int[0];
+        }
+        prepare(adj.capacity());
+        int excluded = stamp;
+        stamp++;
+        int seen = stamp;
+        mark[user] = excluded;
+        int[] following = adj.outNeighbors(user);
+        for (int i = 0; i < adj.outDegree(user); i++) {
+            mark[following[i]] = excluded;
+        }
+
+        int count = 0;
+        if (metric == Metric.FRIENDS_OF_FRIENDS || metric == Metric.ADAMIC_ADAR) {
+            for (int i = 0; i < adj.outDegree(user); i++) {
+                int w = following[i];
+                double weight = metric == Metric.ADAMIC_ADAR
+                        ? 1 / Math.log(adj.inDegree(w) + adj.outDegree(w)) : 1;
+                count = spread(adj.outNeighbors(w), adj.outDegree(w), weight, excluded, seen, count);
+            }
+        } else {
+            int[] followers = adj.inNeighbors(user);
+            for (int i = 0; i < adj.inDegree(user); i++) {
+                int f = followers[i];
+                count = spread(adj.outNeighbors(f), adj.outDegree(f), 1, excluded, seen, count);
+            }
+            if (metric == Metric.JACCARD) {
+                int mine = adj.inDegree(user);
+                for (int i = 0; i < count; i++) {
+                    int x = candidates[i];
+                    score[x] = score[x] / (mine + adj.inDegree(x) - score[x]);
+                }
+            }
+        }
+        return topK(count, k);
+    }
+
+    /**
+     * Adds a weight to the score of every candidate in a neighbor list.
+     *
+     * @return the new number of candidates
+     */
+    private int spread(int[] neighbors, int degree, double weight, int excluded, int seen, int count) {
+        for (int j = 0; j < degree; j++) {
+            int x = neighbors[j];
+            if (mark[x] == excluded) {
+                continue;
+            }
+            if (mark[x] != seen) {
+                mark[x] = seen;
+                score[x] = 0;
+                candidates[count++] = x;
+            }
+            score[x] += weight;
+        }
+        return count;
+    }
+
+    /**
+     * Selects the best candidates with a min-heap of size k, then orders them best first.
+     */
+    private int[] topK(int count, int k) {
+        if (heapVertex.length < k) {
+            heapVertex = new int[k];
+            heapScore = new double[k];
+        }
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int x = candidates[i];
+            double s = score[x];
+            if (size < k) {
+                heapVertex[size] = x;
+                heapScore[size] = s;
+                siftUp(size++);
+            } else if (size > 0 && better(s, x, heapScore[0], heapVertex[0])) {
+                heapVertex[0] = x;
+                heapScore[0] = s;
+                siftDown(0, size);
+            }
+        }
+        int[] result = new int[size];
+        lastScores = new double[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = heapVertex[0];
+            lastScores[i] = heapScore[0];
+            heapVertex[0] = heapVertex[i];
+            heapScore[0] = heapScore[i];
+            siftDown(0, i);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether one candidate ranks above another.
+     */
+    private static boolean better(double s1, int v1, double s2, int v2) {
+        return s1 > s2 || (s1 == s2 && v1 < v2);
+    }
+
+    /**
+     * Moves a heap entry up while it ranks below its parent, keeping the worst entry at the root.
+     */
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!better(heapScore[parent], heapVertex[parent], heapScore[i], heapVertex[i])) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    /**
+     * Moves a heap entry down while a child ranks below it.
+     */
+    private void siftDown(int i, int size) {
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && better(heapScore[worst], heapVertex[worst], heapScore[left], heapVertex[left])) {
+                worst = left;
+            }
+            if (right < size && better(heapScore[worst], heapVertex[worst], heapScore[right], heapVertex[right])) {
+                worst = right;
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    /**
+     * Swaps two heap entries.
+     */
+    private void swap(int i, int j) {
+        int v = heapVertex[i];
+        heapVertex[i] = heapVertex[j];
+        heapVertex[j] = v;
+        double s = heapScore[i];
+        heapScore[i] = heapScore[j];
+        heapScore[j] = s;
+    }
+
+    /**
+     * Grows the scratch buffers to the given capacity and starts a new query.
+     * Each query uses two stamps, one for excluded users and one for candidates.
+     *
+     * @param capacity the number of vertices in the adjacency store
+     */
+    private void prepare(int capacity) {
+        if (mark.length < capacity) {
+            mark = Arrays.copyOf(mark, capacity);
+            score = new double[capacity];
+            candidates = new int[capacity];
+        }
+        stamp++;
+        if (stamp >= Integer.MAX_VALUE - 1) {
+            Arrays.fill(mark, 0);
+            stamp = 1;
+        }
+    }
+}
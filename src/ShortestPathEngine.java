@@ -0,0 +1,236 @@
+import java.util.Arrays;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * Unweighted shortest-path search over a SparseAdjacency store.
+ * Supports a plain breadth-first search and a bidirectional search that expands the
+ * followers of the target at the same time as the following of the source.
+ * Scratch buffers are kept between calls and reset in O(1) with visit stamps,
+ * so an engine should be reused rather than created per query. An engine is not thread-safe.
+ */
+public class ShortestPathEngine {
+    private int[] forwardMark;  // Stamp of the search that reached a vertex from the source.
+    private int[] backwardMark; // Stamp of the search that reached a vertex from the target.
+    private int[] parent;       // Previous vertex on the path from the source.
+    private int[] next;         // Next vertex on the path to the target.
+    private int[] forwardDist;  // Distance from the source.
+    private int[] backwardDist; // Distance to the target.
+    private int[] forwardQueue;
+    private int[] backwardQueue;
+    private int stamp;          // Stamp of the current search.
+    private long visited;       // Vertices settled by the most recent search.
+
+    /**
+     * Constructs an engine with empty scratch buffers.
+     */
+    public ShortestPathEngine() {
+        forwardMark = new int[0];
+        backwardMark = new int[0];
+        parent = new int[0];
+        next = new int[0];
+        forwardDist = new int[0];
+        backwardDist = new int[0];
+        forwardQueue = new int[0];
+        backwardQueue = new int[0];
+    }
+
+    /**
+     * Gets the number of vertices settled by the most recent search.
+     *
+     * @return the number of vertices visited
+     */
+    public long lastVisited() {
+        return visited;
+    }
+
+    /**
+     * Finds a shortest path with a breadth-first search from the source.
+     * Neighbors are expanded in index order, so the path returned is the first one in index order
+     * among all shortest paths.
+     *
+     * @param adj  the adjacency store to search
+     * @param from the source vertex
+     * @param to   the target vertex
+     * @return the vertices on the path from source to target, or null if the target is unreachable
+     */
+    public int[] search(SparseAdjacency adj, int from, int to) {
+        prepare(adj.capacity());
+        visited = 1;
+        if (from == to) {
+            return new int[]{from};
+        }
+        int head = 0;
+        int tail = 0;
+        forwardQueue[tail++] = from;
+        forwardMark[from] = stamp;
+        forwardDist[from] = 0;
+        while (head < tail) {
+            int u = forwardQueue[head++];
+            int[] neighbors = adj.outNeighbors(u);
+            int degree = adj.outDegree(u);
+            for (int k = 0; k < degree; k++) {
+                int v = neighbors[k];
+                if (forwardMark[v] == stamp) {
+                    continue;
+                }
+                forwardMark[v] = stamp;
+                forwardDist[v] = forwardDist[u] + 1;
+                parent[v] = u;
+                visited++;
+                if (v == to) {
+                    return buildPath(from, v, -1, to);
+                }
+                forwardQueue[tail++] = v;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a shortest path with a bidirectional breadth-first search, growing the source side
+     * along out-edges and the target side along in-edges, always expanding the smaller frontier.
+     * Any shortest path may be returned.
+     *
+     * @param adj  the adjacency store to search
+     * @param from the source vertex
+     * @param to   the target vertex
+     * @return the vertices on the path from source to target, or null if the target is unreachable
+     */
+    public int[] searchBidirectional(SparseAdjacency adj, int from, int to) {
+        prepare(adj.capacity());
+        visited = 1;
+        if (from == to) {
+            return new int[]{from};
+        }
+        int forwardHead = 0;
+        int forwardTail = 0;
+        int backwardHead = 0;
+        int backwardTail = 0;
+        forwardQueue[forwardTail++] = from;
+        forwardMark[from] = stamp;
+        forwardDist[from] = 0;
+        backwardQueue[backwardTail++] = to;
+        backwardMark[to] = stamp;
+        backwardDist[to] = 0;
+        visited++;
+
+        while (forwardHead < forwardTail && backwardHead < backwardTail) {
+            int best = Integer.MAX_VALUE;
+            int meetFrom = -1;
+            int meetTo = -1;
+            if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+                int levelEnd = forwardTail;
+                while (forwardHead < levelEnd) {
+                    int u = forwardQueue[forwardHead++];
+                    int[] neighbors = adj.outNeighbors(u);
+                    int degree = adj.outDegree(u);
+                    for (int k = 0; k < degree; k++) {
+                        int v = neighbors[k];
+                        if (backwardMark[v] == stamp) {
+                            int length = forwardDist[u] + 1 + backwardDist[v];
+                            if (length < best) {
+                                best = length;
+                                meetFrom = u;
+                                meetTo = v;
+                            }
+                        }
+                        if (forwardMark[v] != stamp) {
+                            forwardMark[v] = stamp;
+                            forwardDist[v] = forwardDist[u] + 1;
+                            parent[v] = u;
+                            forwardQueue[forwardTail++] = v;
+                            visited++;
+                        }
+                    }
+                }
+            } else {
+                int levelEnd = backwardTail;
+                while (backwardHead < levelEnd) {
+                    int v = backwardQueue[backwardHead++];
+                    int[] neighbors = adj.inNeighbors(v);
+                    int degree = adj.inDegree(v);
+                    for (int k = 0; k < degree; k++) {
+                        int u = neighbors[k];
+                        if (forwardMark[u] == stamp) {
+                            int length = forwardDist[u] + 1 + backwardDist[v];
+                            if (length < best) {
+                                best = length;
+                                meetFrom = u;
+                                meetTo = v;
+                            }
+                        }
+                        if (backwardMark[u] != stamp) {
+                            backwardMark[u] = stamp;
+                            backwardDist[u] = backwardDist[v] + 1;
+                            next[u] = v;
+                            backwardQueue[backwardTail++] = u;
+                            visited++;
+                        }
+                    }
+                }
+            }
+            if (meetFrom >= 0) {
+                return buildPath(from, meetFrom, meetTo, to);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Walks the parent links back to the source and the next links forward to the target.
+     *
+     * @param from     the source vertex
+     * @param meetFrom the last vertex reached from the source side
+     * @param meetTo   the first vertex reached from the target side, or -1 for a one-sided search
+     * @param to       the target vertex
+     * @return the vertices on the path
+     */
+    private int[] buildPath(int from, int meetFrom, int meetTo, int to) {
+        int length = forwardDist[meetFrom] + 1;
+        if (meetTo >= 0) {
+            length += backwardDist[meetTo] + 1;
+        }
+        int[] path = new int[length];
+        int v = meetFrom;
+        for (int i = forwardDist[meetFrom]; i >= 0; i--) {
+            path[i] = v;
+            v = (v == from) ? v : parent[v];
+        }
+        if (meetTo >= 0) {
+            v = meetTo;
+            for (int i = forwardDist[meetFrom] + 1; i < length; i++) {
+                path[i] = v;
+                v = (v == to) ? v : next[v];
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Grows the scratch buffers to the graph capacity and starts a new search stamp.
+     *
+     * @param capacity the number of vertex slots in the graph
+     */
+    private void prepare(int capacity) {
+        if (forwardMark.length < capacity) {
+            forwardMark = Arrays.copyOf(forwardMark, capacity);
+            backwardMark = Arrays.copyOf(backwardMark, capacity);
+            parent = new int[capacity];
+            next = new int[capacity];
+            forwardDist = new int[capacity];
+            backwardDist = new int[capacity];
+            forwardQueue = new int[capacity];
+            backwardQueue = new int[capacity];
+        }
+        stamp++;
+        if (stamp == 0) {
+            Arrays.fill(forwardMark, 0);
+            Arrays.fill(backwardMark, 0);
+            stamp = 1;
+        }
+    }
+}
@@ -0,0 +1,455 @@
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * A growable, sparse adjacency store for a directed graph.
+ * Each vertex keeps a sorted primitive int list of the vertices it points to (out-list)
+ * and a sorted list of the vertices that point to it (in-list), so memory is proportional
+ * to the number of vertices plus the number of edges.
+ */
+public class SparseAdjacency implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Shared empty list used by vertices without edges
+     */
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Default number of vertex slots allocated up front
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Size ratio between two lists above which intersection gallops through the longer one
+     */
+    private static final int GALLOP_RATIO = 32;
+
+    private int[][] out;     // Sorted out-lists, valid up to outSize[v].
+    private int[][] in;      // Sorted in-lists, valid up to inSize[v].
+    private int[] outSize;   // Number of out-edges per vertex.
+    private int[] inSize;    // Number of in-edges per vertex.
+    private long edgeCount;  // Total number of edges in the store.
+
+    /**
+     * Constructs an empty adjacency store.
+     */
+    public SparseAdjacency() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty adjacency store with room for the given number of vertices.
+     *
+     * @param capacity the initial number of vertex slots
+     */
+    public SparseAdjacency(int capacity) {
+        capacity = Math.max(capacity, 1);
+        out = new int[capacity][];
+        in = new int[capacity][];
+        Arrays.fill(out, EMPTY);
+        Arrays.fill(in, EMPTY);
+        outSize = new int[capacity];
+        inSize = new int[capacity];
+    }
+
+    /**
+     * Builds an adjacency store from complete, sorted out-lists. The in-lists are derived by
+     * visiting the sources in index order, which leaves every in-list sorted without a sort pass.
+     *
+     * @param outLists the sorted out-list of each vertex, used as the backing arrays
+     * @return the adjacency store
+     */
+    public static SparseAdjacency fromOutLists(int[][] outLists) {
+        int vertices = outLists.length;
+        SparseAdjacency adjacency = new SparseAdjacency(vertices);
+        for (int v = 0; v < vertices; v++) {
+            adjacency.out[v] = outLists[v].length == 0 ? EMPTY : outLists[v];
+            adjacency.outSize[v] = outLists[v].length;
+            adjacency.edgeCount += outLists[v].length;
+            for (int target : outLists[v]) {
+                adjacency.inSize[target]++;
+            }
+        }
+        for (int v = 0; v < vertices; v++) {
+            if (adjacency.inSize[v] > 0) {
+                adjacency.in[v] = new int[adjacency.inSize[v]];
+                adjacency.inSize[v] = 0;
+            }
+        }
+        for (int v = 0; v < vertices; v++) {
+            for (int target : outLists[v]) {
+                adjacency.in[target][adjacency.inSize[target]++] = v;
+            }
+        }
+        return adjacency;
+    }
+
+    /**
+     * Gets the number of vertex slots currently allocated.
+     *
+     * @return the capacity of the store
+     */
+    public int capacity() {
+        return out.length;
+    }
+
+    /**
+     * Gets the total number of edges in the store.
+     *
+     * @return the edge count
+     */
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Estimates the memory held by the store.
+     *
+     * @return the approximate size in bytes of the lists and their sizes
+     */
+    public long memoryBytes() {
+        long bytes = 4 * (16 + 4L * out.length);
+        for (int v = 0; v < out.length; v++) {
+            bytes += (out[v] == EMPTY ? 0 : 16 + 4L * out[v].length) + (in[v] == EMPTY ? 0 : 16 + 4L * in[v].length);
+        }
+        return bytes;
+    }
+
+    /**
+     * Makes sure vertex indices below the given bound can be used.
+     *
+     * @param vertices the number of vertex slots required
+     */
+    public void ensureCapacity(int vertices) {
+        int old = out.length;
+        if (vertices <= old) {
+            return;
+        }
+        int grown = Math.max(vertices, old + (old >> 1));
+        out = Arrays.copyOf(out, grown);
+        in = Arrays.copyOf(in, grown);
+        Arrays.fill(out, old, grown, EMPTY);
+        Arrays.fill(in, old, grown, EMPTY);
+        outSize = Arrays.copyOf(outSize, grown);
+        inSize = Arrays.copyOf(inSize, grown);
+    }
+
+    /**
+     * Adds the edge from -> to if it is not already present.
+     *
+     * @param from the source vertex
+     * @param to   the target vertex
+     * @return true if the edge was added, false if it already existed
+     */
+    public boolean addEdge(int from, int to) {
+        int pos = Arrays.binarySearch(out[from], 0, outSize[from], to);
+        if (pos >= 0) {
+            return false;
+        }
+        out[from] = insertAt(out[from], outSize[from], -pos - 1, to);
+        outSize[from]++;
+        int inPos = Arrays.binarySearch(in[to], 0, inSize[to], from);
+        in[to] = insertAt(in[to], inSize[to], -inPos - 1, from);
+        inSize[to]++;
+        edgeCount++;
+        return true;
+    }
+
+    /**
+     * Adds a batch of edges at once. Edges are appended unsorted and every touched list is then
+     * sorted and deduplicated a single time, which is much cheaper than one sorted insert per edge.
+     * Edges that already exist or repeat within the batch are ignored.
+     *
+     * @param from  the source vertex of each edge
+     * @param to    the target vertex of each edge
+     * @param count the number of edges in the batch
+     * @return the number of edges that were new
+     */
+    public long addEdges(int[] from, int[] to, int count) {
+        int vertices = out.length;
+        int[] outAdded = new int[vertices];
+        int[] inAdded = new int[vertices];
+        for (int i = 0; i < count; i++) {
+            outAdded[from[i]]++;
+            inAdded[to[i]]++;
+        }
+        for (int v = 0; v < vertices; v++) {
+            if (outAdded[v] > 0) {
+                out[v] = Arrays.copyOf(out[v], outSize[v] + outAdded[v]);
+            }
+            if (inAdded[v] > 0) {
+                in[v] = Arrays.copyOf(in[v], inSize[v] + inAdded[v]);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            out[from[i]][outSize[from[i]]++] = to[i];
+            in[to[i]][inSize[to[i]]++] = from[i];
+        }
+        long before = edgeCount;
+        for (int v = 0; v < vertices; v++) {
+            if (outAdded[v] > 0) {
+                int oldSize = outSize[v] - outAdded[v];
+                outSize[v] = sortUnique(out[v], outSize[v]);
+                edgeCount += outSize[v] - oldSize;
+            }
+            if (inAdded[v] > 0) {
+                inSize[v] = sortUnique(in[v], inSize[v]);
+            }
+        }
+        return edgeCount - before;
+    }
+
+    /**
+     * Sorts the first entries of a list and removes repeated values.
+     *
+     * @param list the list to normalize
+     * @param size the number of valid entries
+     * @return the number of distinct entries left at the front of the list
+     */
+    private static int sortUnique(int[] list, int size) {
+        Arrays.sort(list, 0, size);
+        int unique = 0;
+        for (int k = 0; k < size; k++) {
+            if (unique == 0 || list[unique - 1] != list[k]) {
+                list[unique++] = list[k];
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * Removes the edge from -> to if it is present.
+     *
+     * @param from the source vertex
+     * @param to   the target vertex
+     * @return true if the edge was removed, false if it did not exist
+     */
+    public boolean removeEdge(int from, int to) {
+        int pos = Arrays.binarySearch(out[from], 0, outSize[from], to);
+        if (pos < 0) {
+            return false;
+        }
+        removeAt(out[from], outSize[from], pos);
+        outSize[from]--;
+        int inPos = Arrays.binarySearch(in[to], 0, inSize[to], from);
+        removeAt(in[to], inSize[to], inPos);
+        inSize[to]--;
+        edgeCount--;
+        return true;
+    }
+
+    /**
+     * Checks whether the edge from -> to exists.
+     *
+     * @param from the source vertex
+     * @param to   the target vertex
+     * @return true if the edge exists
+     */
+    public boolean hasEdge(int from, int to) {
+        return Arrays.binarySearch(out[from], 0, outSize[from], to) >= 0;
+    }
+
+    /**
+     * Gets the number of edges leaving a vertex.
+     *
+     * @param v the vertex
+     * @return the out-degree of the vertex
+     */
+    public int outDegree(int v) {
+        return outSize[v];
+    }
+
+    /**
+     * Gets the number of edges entering a vertex.
+     *
+     * @param v the vertex
+     * @return the in-degree of the vertex
+     */
+    public int inDegree(int v) {
+        return inSize[v];
+    }
+
+    /**
+     * Gets the backing out-list of a vertex. Only the first outDegree(v) entries are valid,
+     * and the array must not be modified by the caller.
+     *
+     * @param v the vertex
+     * @return the sorted out-neighbors of the vertex
+     */
+    public int[] outNeighbors(int v) {
+        return out[v];
+    }
+
+    /**
+     * Gets the backing in-list of a vertex. Only the first inDegree(v) entries are valid,
+     * and the array must not be modified by the caller.
+     *
+     * @param v the vertex
+     * @return the sorted in-neighbors of the vertex
+     */
+    public int[] inNeighbors(int v) {
+        return in[v];
+    }
+
+    /**
+     * Removes every edge entering or leaving a vertex. The vertex slot itself stays allocated.
+     * Costs time proportional to the degree of the vertex and the lists of its neighbors.
+     *
+     * @param v the vertex to clear
+     */
+    public void clearVertex(int v) {
+        for (int k = outSize[v] - 1; k >= 0; k--) {
+            removeEdge(v, out[v][k]);
+        }
+        for (int k = inSize[v] - 1; k >= 0; k--) {
+            removeEdge(in[v][k], v);
+        }
+        out[v] = EMPTY;
+        in[v] = EMPTY;
+    }
+
+    /**
+     * Renumbers the vertices so that the used slots become contiguous.
+     * The mapping must be increasing over the vertices that are kept, which keeps every list sorted,
+     * and vertices mapped to -1 must have no edges.
+     *
+     * @param mapping  the new index of each old vertex, or -1 for a discarded slot
+     * @param oldCount the number of old slots covered by the mapping
+     * @param newCount the number of vertices after renumbering
+     */
+    public void compact(int[] mapping, int oldCount, int newCount) {
+        for (int v = 0; v < oldCount; v++) {
+            int target = mapping[v];
+            if (target < 0) {
+                continue;
+            }
+            for (int k = 0; k < outSize[v]; k++) {
+                out[v][k] = mapping[out[v][k]];
+            }
+            for (int k = 0; k < inSize[v]; k++) {
+                in[v][k] = mapping[in[v][k]];
+            }
+            out[target] = out[v];
+            in[target] = in[v];
+            outSize[target] = outSize[v];
+            inSize[target] = inSize[v];
+        }
+        for (int v = newCount; v < oldCount; v++) {
+            out[v] = EMPTY;
+            in[v] = EMPTY;
+            outSize[v] = 0;
+            inSize[v] = 0;
+        }
+    }
+
+    /**
+     * Lists the vertices that are out-neighbors of a and also out-neighbors of b.
+     *
+     * @param a the first vertex
+     * @param b the second vertex
+     * @return the common out-neighbors in ascending order
+     */
+    public int[] commonOut(int a, int b) {
+        return intersect(out[a], outSize[a], out[b], outSize[b]);
+    }
+
+    /**
+     * Lists the vertices that are in-neighbors of a and also in-neighbors of b.
+     *
+     * @param a the first vertex
+     * @param b the second vertex
+     * @return the common in-neighbors in ascending order
+     */
+    public int[] commonIn(int a, int b) {
+        return intersect(in[a], inSize[a], in[b], inSize[b]);
+    }
+
+    /**
+     * Lists the vertices that are both out-neighbors and in-neighbors of v.
+     *
+     * @param v the vertex
+     * @return the vertices linked to v in both directions, in ascending order
+     */
+    public int[] mutual(int v) {
+        return intersect(out[v], outSize[v], in[v], inSize[v]);
+    }
+
+    /**
+     * Intersects two sorted lists. Lists of similar length are merged in one linear pass; when one
+     * list is much shorter, each of its values is found in the longer list by galloping, doubling the
+     * step until it overshoots and then binary searching, which costs O(m log(n / m)).
+     *
+     * @param a     the first sorted list
+     * @param aSize the number of valid entries in the first list
+     * @param b     the second sorted list
+     * @param bSize the number of valid entries in the second list
+     * @return the values in both lists, in ascending order
+     */
+    public static int[] intersect(int[] a, int aSize, int[] b, int bSize) {
+        if (aSize > bSize) {
+            return intersect(b, bSize, a, aSize);
+        }
+        int[] result = new int[aSize];
+        int n = 0;
+        if ((long) aSize * GALLOP_RATIO < bSize) {
+            int low = 0;
+            for (int i = 0; i < aSize && low < bSize; i++) {
+                int value = a[i];
+                int step = 1;
+                int high = low;
+                while (high < bSize && b[high] < value) {
+                    low = high + 1;
+                    high += step;
+                    step <<= 1;
+                }
+                int pos = Arrays.binarySearch(b, low, Math.min(high + 1, bSize), value);
+                if (pos >= 0) {
+                    result[n++] = value;
+                    low = pos + 1;
+                } else {
+                    low = -pos - 1;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < aSize && j < bSize) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Inserts a value into a list, growing the backing array when it is full.
+     */
+    private static int[] insertAt(int[] list, int size, int pos, int value) {
+        if (size == list.length) {
+            list = Arrays.copyOf(list, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(list, pos, list, pos + 1, size - pos);
+        list[pos] = value;
+        return list;
+    }
+
+    /**
+     * Removes the value at the given position of a list.
+     */
+    private static void removeAt(int[] list, int size, int pos) {
+        System.arraycopy(list, pos + 1, list, pos, size - pos - 1);
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * @author Justin Chong
+ * Email: justin.chong@stonybrook.edu
+ * Student ID: 116143020
+ * Recitation Number: CSE 214 R03
+ * TA: Kevin Zheng
+ * The strongly connected components of a follow graph, found with an iterative version of
+ * Tarjan's algorithm so that long chains of users cannot overflow the call stack.
+ * Components are numbered in reverse topological order: if any user in component a can reach a user
+ * in a different component b, then a is numbered higher than b.
+ */
+public class StronglyConnectedComponents {
+    private final int[] component;  // Component id of each vertex.
+    private final int[] offsets;    // Start of each component's members in the members array.
+    private final int[] members;    // Vertices grouped by component, ascending within a component.
+    private final boolean[] cyclic; // Whether a component contains at least one cycle.
+    private final int count;        // Number of components.
+
+    /**
+     * Computes the strongly connected components of the first vertices of an adjacency store.
+     *
+     * @param adjacency   the adjacency store
+     * @param vertexCount the number of vertices to consider; vertices at or above it are ignored
+     */
+    public StronglyConnectedComponents(SparseAdjacency adjacency, int vertexCount) {
+        component = new int[vertexCount];
+        int[] index = new int[vertexCount];   // Discovery order plus one, 0 when undiscovered.
+        int[] low = new int[vertexCount];
+        boolean[] onStack = new boolean[vertexCount];
+        int[] stack = new int[vertexCount];
+        int[] callVertex = new int[vertexCount];
+        int[] callCursor = new int[vertexCount];
+        int stackSize = 0;
+        int nextIndex = 1;
+        int components = 0;
+
+        for (int root = 0; root < vertexCount; root++) {
+            if (index[root] != 0) {
+                continue;
+            }
+            int depth = 0;
+            callVertex[0] = root;
+            callCursor[0] = 0;
+            index[root] = low[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                int v = callVertex[depth];
+                if (callCursor[depth] < adjacency.outDegree(v)) {
+                    int w = adjacency.outNeighbors(v)[callCursor[depth]++];
+                    if (w >= vertexCount) {
+                        continue;
+                    }
+                    if (index[w] == 0) {
+                        depth++;
+                        callVertex[depth] = w;
+                        callCursor[depth] = 0;
+                        index[w] = low[w] = nextIndex++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                } else {
+                    if (low[v] == index[v]) {
+                        int w;
+                        do {
+                            w = stack[--stackSize];
+                            onStack[w] = false;
+                            component[w] = components;
+                        } while (w != v);
+                        components++;
+                    }
+                    depth--;
+                    if (depth >= 0) {
+                        int parent = callVertex[depth];
+                        low[parent] = Math.min(low[parent], low[v]);
+                    }
+                }
+            }
+        }
+
+        count = components;
+        offsets = new int[components + 1];
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[component[v] + 1]++;
+        }
+        for (int c = 0; c < components; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        members = new int[vertexCount];
+        int[] fill = new int[components];
+        for (int v = 0; v < vertexCount; v++) {
+            int c = component[v];
+            members[offsets[c] + fill[c]++] = v;
+        }
+        cyclic = new boolean[components];
+        for (int c = 0; c < components; c++) {
+            int first = members[offsets[c]];
+            cyclic[c] = offsets[c + 1] - offsets[c] > 1 || adjacency.hasEdge(first, first);
+        }
+    }
+
+    /**
+     * Gets the number of components.
+     *
+     * @return the component count
+     */
+    public int componentCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of vertices the components were computed over.
+     *
+     * @return the vertex count
+     */
+    public int vertexCount() {
+        return component.length;
+    }
+
+    /**
+     * Gets the component a vertex belongs to.
+     *
+     * @param v the vertex
+     * @return the component id
+     */
+    public int componentOf(int v) {
+        return component[v];
+    }
+
+    /**
+     * Gets the number of vertices in a component.
+     *
+     * @param c the component id
+     * @return the component size
+     */
+    public int componentSize(int c) {
+        return offsets[c + 1] - offsets[c];
+    }
+
+    /**
+     * Gets the vertex at a position within a component. Members are in ascending order.
+     *
+     * @param c the component id
+     * @param i the position within the component, from 0 to componentSize(c) - 1
+     * @return the vertex
+     */
+    public int member(int c, int i) {
+        return members[offsets[c] + i];
+    }
+
+    /**
+     * Checks whether a component contains a cycle, meaning it has more than one vertex or a vertex
+     * that follows itself.
+     *
+     * @param c the component id
+     * @return true if the component contains a cycle
+     */
+    public boolean isCyclic(int c) {
+        return cyclic[c];
+    }
+
+    /**
+     * Checks the component numbering for a possible path between two vertices. A false result is
+     * certain, since no vertex can reach a component numbered above its own; a true result only
+     * means a search is needed unless both vertices share a component.
+     *
+     * @param from the starting vertex
+     * @param to   the target vertex
+     * @return false if there is definitely no path from one vertex to the other
+     */
+    public boolean mayReach(int from, int to) {
+        return component[from] >= component[to];
+    }
+}
@@ -7,25 +7,28 @@ import java.io.Serializable;
  * Recitation Number: CSE 214 R03
  * TA: Kevin Zheng
  * Represents a user in the follow graph system.
- * Each user has a unique username and an index position within the graph.
+ * Each user has a unique username, an ID that the graph assigns when the user is added and that never
+ * changes afterwards, and an index position within the graph that may change when the graph is compacted.
  * Implements Serializable to allow saving and loading user data.
  */
 public class User implements Serializable {
     private static final long serialVersionUID = 1L;
     private String userName; // The username of the user.
+    private final int id;    // The stable ID of the user within its graph.
     private int indexPos;    // The index position of the user in the graph.
-    private static int userCount; // A static counter to assign unique index positions to users.
 
     /**
-     * Constructs a new User with the specified username.
-     * The user's index position is automatically assigned based on the current user count.
+     * Constructs a new User with the specified username, ID and index position.
+     * IDs are handed out by the graph the user belongs to, so graphs create users independently of each other.
      *
-     * @param u The username of the user.
+     * @param u        The username of the user.
+     * @param id       The ID of the user in the graph.
+     * @param indexPos The index position of the user in the graph.
      */
-    public User(String u) {
+    public User(String u, int id, int indexPos) {
         userName = u;
-        indexPos = userCount;
-        userCount++;
+        this.id = id;
+        this.indexPos = indexPos;
     }
 
     /**
@@ -46,6 +49,15 @@ public class User implements Serializable {
         this.userName = userName;
     }
 
+    /**
+     * Gets the ID of this user, which stays the same for as long as the user is in the graph.
+     *
+     * @return The ID of the user.
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Gets the index position of this user in the graph.
      *
@@ -63,22 +75,4 @@ public class User implements Serializable {
     public void setIndexPos(int indexPos) {
         this.indexPos = indexPos;
     }
-
-    /**
-     * Gets the total number of users created so far.
-     *
-     * @return The total user count.
-     */
-    public static int getUserCount() {
-        return userCount;
-    }
-
-    /**
-     * Sets the total user count. This can be used for resetting or loading state.
-     *
-     * @param c The new user count to set.
-     */
-    public static void setUserCount(int c) {
-        userCount = c;
-    }
 }